@@ -1,94 +1,125 @@
 package com.promonitor.controller;
 
-import java.time.Duration;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.promonitor.model.Application;
 import com.promonitor.model.ApplicationGroup;
 import com.promonitor.model.Limit;
+import com.promonitor.model.LimitTarget;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Quản lý bảng giới hạn. Bảng được công bố qua một tham chiếu volatile tới {@link LimitSnapshot}
+ * bất biến: luồng theo dõi đọc không khóa, còn các thao tác ghi (thường từ luồng giao diện)
+ * được tuần tự hóa và thay cả bảng bằng phiên bản mới.
+ */
 public class LimitManager {
     private static final Logger logger = LoggerFactory.getLogger(LimitManager.class);
 
-    private final Map<Object, Limit> limits;
+    private volatile LimitSnapshot snapshot = LimitSnapshot.EMPTY;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
 
     public LimitManager() {
-        this.limits = new HashMap<>();
     }
 
     public void setLimit(Application application, Limit limit) {
-        limits.put(application, limit);
+        put(application, limit);
         logger.debug("Đã đặt giới hạn cho ứng dụng {}: {}", application.getName(), limit);
+        fireLimitsChanged();
     }
 
     public void setLimit(ApplicationGroup group, Limit limit) {
-        limits.put(group, limit);
+        put(group, limit);
         logger.debug("Đã đặt giới hạn cho nhóm {}: {}", group.getName(), limit);
+        fireLimitsChanged();
+    }
+
+    public void setLimit(LimitTarget target, Limit limit) {
+        put(target, limit);
+        logger.debug("Đã đặt giới hạn cho mẫu {}: {}", target, limit);
+        fireLimitsChanged();
     }
 
     public void removeLimit(Application application) {
-        boolean removed = limits.remove(application) != null;
+        boolean removed = remove(application);
         if (removed) {
             logger.debug("Đã xóa giới hạn cho ứng dụng: {}", application.getName());
+            fireLimitsChanged();
         }
     }
 
     public void removeLimit(ApplicationGroup group) {
-        boolean removed = limits.remove(group) != null;
+        boolean removed = remove(group);
         if (removed) {
             logger.debug("Đã xóa giới hạn cho nhóm: {}", group.getName());
+            fireLimitsChanged();
+        }
+    }
+
+    public void removeLimit(LimitTarget target) {
+        boolean removed = remove(target);
+        if (removed) {
+            logger.debug("Đã xóa giới hạn cho mẫu: {}", target);
+            fireLimitsChanged();
         }
     }
 
-    public boolean isLimitExceeded(Application application, Duration usageTime) {
-        Limit limit = limits.get(application);
-        if (limit != null) {
-            if (limit.needsReset()) {
-                limit.reset();
-                logger.debug("Đã reset giới hạn cho ứng dụng: {}", application.getName());
-                return false;
-            }
-            return limit.isExceeded(usageTime);
+    private synchronized void put(Object target, Limit limit) {
+        snapshot = snapshot.with(target, limit);
+    }
+
+    private synchronized boolean remove(Object target) {
+        if (!snapshot.containsTarget(target)) {
+            return false;
         }
-        return false;
-    }
-
-    public boolean isGroupLimitExceeded(Application application, Map<ApplicationGroup, Duration> usageMap) {
-        for (Map.Entry<Object, Limit> entry : limits.entrySet()) {
-            if (entry.getKey() instanceof ApplicationGroup group) {
-                if (group.containsApplication(application)) {
-                    Limit limit = entry.getValue();
-                    Duration groupUsage = usageMap.getOrDefault(group, Duration.ZERO);
-
-                    if (limit.needsReset()) {
-                        limit.reset();
-                        logger.debug("Đã reset giới hạn cho nhóm: {}", group.getName());
-                        continue;
-                    }
-
-                    if (limit.isExceeded(groupUsage)) {
-                        logger.debug("Ứng dụng {} thuộc nhóm {} đã vượt quá giới hạn",
-                                application.getName(), group.getName());
-                        return true;
-                    }
-                }
-            }
+        snapshot = snapshot.without(target);
+        return true;
+    }
+
+    /**
+     * Đăng ký hàm được gọi mỗi khi một giới hạn được đặt hoặc xóa.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void fireLimitsChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
         }
-        return false;
     }
 
     public Limit getLimit(Application application) {
-        return limits.get(application);
+        return snapshot.get(application);
     }
 
     public Limit getLimit(ApplicationGroup group) {
-        return limits.get(group);
+        return snapshot.get(group);
+    }
+
+    public Limit getLimit(LimitTarget target) {
+        return snapshot.get(target);
     }
 
+    /**
+     * @return bảng giới hạn hiện tại, chỉ đọc và không bị sao chép
+     */
     public Map<Object, Limit> getAllLimits() {
-        return new HashMap<>(limits);
+        return snapshot.getLimits();
+    }
+
+    public LimitSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public long getVersion() {
+        return snapshot.getVersion();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package com.promonitor.controller;
+
+import com.promonitor.model.Limit;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bảng giới hạn bất biến tại một phiên bản. {@link LimitManager} tạo bảng mới cho mỗi lần
+ * thay đổi, nên bên đọc giữ một bảng mà không cần khóa hay sao chép, và chỉ cần so sánh
+ * {@link #getVersion()} để biết đã có thay đổi hay chưa.
+ */
+public final class LimitSnapshot {
+    static final LimitSnapshot EMPTY = new LimitSnapshot(0, new HashMap<>());
+
+    private final long version;
+    private final Map<Object, Limit> limits;
+
+    private LimitSnapshot(long version, Map<Object, Limit> limits) {
+        this.version = version;
+        this.limits = Collections.unmodifiableMap(limits);
+    }
+
+    LimitSnapshot with(Object target, Limit limit) {
+        Map<Object, Limit> copy = new HashMap<>(limits);
+        copy.put(target, limit);
+        return new LimitSnapshot(version + 1, copy);
+    }
+
+    LimitSnapshot without(Object target) {
+        Map<Object, Limit> copy = new HashMap<>(limits);
+        copy.remove(target);
+        return new LimitSnapshot(version + 1, copy);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Limit get(Object target) {
+        return limits.get(target);
+    }
+
+    public boolean containsTarget(Object target) {
+        return limits.containsKey(target);
+    }
+
+    /**
+     * @return bảng chỉ đọc, không sao chép
+     */
+    public Map<Object, Limit> getLimits() {
+        return limits;
+    }
+
+    public int size() {
+        return limits.size();
+    }
+}
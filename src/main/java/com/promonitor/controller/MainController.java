@@ -3,6 +3,9 @@ package com.promonitor.controller;
 import com.promonitor.model.*;
 import com.promonitor.model.enums.ReportType;
 import com.promonitor.util.DataStorage;
+import com.promonitor.util.JournalCompactor;
+import com.promonitor.util.UsageRollup;
+import com.promonitor.util.UsageJournal;
 import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -14,22 +17,40 @@ import javafx.stage.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class MainController {
     private static final Logger logger = LoggerFactory.getLogger(MainController.class);
 
+    private static final long USAGE_MAINTENANCE_MINUTES = 10;
+
     private final User currentUser;
     private final Monitor monitor;
     private final LimitManager limitManager;
     private final Notifier notifier;
     private DataStorage dataStorage;
+    private UsageJournal usageJournal;
+    private final UsageRollup usageRollup = new UsageRollup();
+    private JournalCompactor journalCompactor;
+    // Lưu tệp tổng hợp và áp dụng thời gian lưu giữ định kỳ, ngoài luồng giao diện
+    private ScheduledExecutorService usageMaintenance;
+    // Tên ứng dụng -> tên các nhóm chứa nó; bản chụp bất biến để luồng lấy mẫu đọc không khóa
+    private volatile Map<String, List<String>> groupsByAppName = Collections.emptyMap();
     private final LocalDateTime currentTime;
 
     private final ObservableList<Application> applicationList = FXCollections.observableArrayList();
@@ -45,6 +66,7 @@ public class MainController {
 
         initializeDataStorage();
         loadSavedData();
+        initializeUsageHistory();
     }
 
     private void initializeDataStorage() {
@@ -54,7 +76,72 @@ public class MainController {
         } catch (Exception e) {
             logger.error("Không thể khởi tạo kho dữ liệu", e);
             showErrorAlert("Lỗi Khởi Tạo", "Không thể khởi tạo kho dữ liệu: " + e.getMessage());
+            return;
+        }
+
+        try {
+            usageJournal = dataStorage.openUsageJournal();
+            monitor.addUsageListener(usageJournal);
+        } catch (IOException e) {
+            // Vẫn theo dõi được, chỉ mất lịch sử sử dụng của phiên này
+            logger.error("Không thể mở nhật ký sử dụng", e);
+        }
+    }
+
+    private void initializeUsageHistory() {
+        if (dataStorage == null) {
+            return;
+        }
+        dataStorage.loadUsageRollup(usageRollup, this::groupsOf);
+        usageRollup.setGroupResolver(app -> groupsOf(app.getName()));
+        monitor.addUsageListener(usageRollup);
+
+        usageMaintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "promonitor-usage-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        usageMaintenance.scheduleWithFixedDelay(this::maintainUsageHistory,
+                0, USAGE_MAINTENANCE_MINUTES, TimeUnit.MINUTES);
+
+        if (usageJournal != null) {
+            journalCompactor = new JournalCompactor(usageJournal, dataStorage.getDayArchive());
+            journalCompactor.start();
+        }
+    }
+
+    /**
+     * Áp dụng thời gian lưu giữ của từng tầng tổng hợp rồi lưu tệp tổng hợp, để máy chạy liên tục
+     * không giữ mãi các ô phút/giờ cũ và một lần tắt đột ngột chỉ phải bù lại ít nhật ký. Phân đoạn
+     * nhật ký thô quá hạn do {@link JournalCompactor} xóa sau khi đã được gộp thành tệp ngày.
+     */
+    private void maintainUsageHistory() {
+        try {
+            int removed = usageRollup.applyRetention(System.currentTimeMillis());
+            if (removed > 0) {
+                logger.debug("Đã bỏ {} ô tổng hợp quá hạn lưu giữ", removed);
+            }
+            dataStorage.saveUsageRollup(usageRollup);
+        } catch (RuntimeException e) {
+            logger.error("Lỗi khi bảo trì dữ liệu tổng hợp", e);
+        }
+    }
+
+    private List<String> groupsOf(String appName) {
+        return groupsByAppName.getOrDefault(appName, Collections.emptyList());
+    }
+
+    private void refreshGroupIndex() {
+        Map<String, List<String>> index = new HashMap<>();
+        for (ApplicationGroup group : groupList) {
+            for (Application app : group.getApplications()) {
+                List<String> names = index.computeIfAbsent(app.getName(), name -> new ArrayList<>());
+                if (!names.contains(group.getName())) {
+                    names.add(group.getName());
+                }
+            }
         }
+        groupsByAppName = index;
     }
 
     private void loadSavedData() {
@@ -62,6 +149,7 @@ public class MainController {
             List<ApplicationGroup> savedGroups = dataStorage.loadApplicationGroups();
             if (savedGroups != null && !savedGroups.isEmpty()) {
                 groupList.addAll(savedGroups);
+                refreshGroupIndex();
                 logger.info("Đã tải {} nhóm ứng dụng", savedGroups.size());
             }
 
@@ -102,6 +190,12 @@ public class MainController {
         logger.info("Đã đặt giới hạn cho nhóm: {}", group.getName());
     }
 
+    public void setLimit(LimitTarget target, Limit limit) {
+        limitManager.setLimit(target, limit);
+        saveData();
+        logger.info("Đã đặt giới hạn cho mẫu: {}", target);
+    }
+
     public ApplicationGroup createGroup(String name) {
         ApplicationGroup newGroup = new ApplicationGroup(name);
         groupList.add(newGroup);
@@ -113,6 +207,7 @@ public class MainController {
     public void deleteGroup(ApplicationGroup group) {
         boolean removed = groupList.remove(group);
         if (removed) {
+            refreshGroupIndex();
             limitManager.removeLimit(group);
             saveData();
             logger.info("Đã xóa nhóm: {}", group.getName());
@@ -122,6 +217,8 @@ public class MainController {
     public void addToGroup(ApplicationGroup group, Application app) {
         boolean added = group.addApplication(app);
         if (added) {
+            refreshGroupIndex();
+            monitor.invalidateLimitSchedule();
             saveData();
             logger.info("Đã thêm ứng dụng {} vào nhóm {}", app.getName(), group.getName());
         }
@@ -130,6 +227,8 @@ public class MainController {
     public void removeFromGroup(ApplicationGroup group, Application app) {
         boolean removed = group.removeApplication(app);
         if (removed) {
+            refreshGroupIndex();
+            monitor.invalidateLimitSchedule();
             saveData();
             logger.info("Đã xóa ứng dụng {} khỏi nhóm {}", app.getName(), group.getName());
         }
@@ -138,6 +237,7 @@ public class MainController {
     public Report createReport(ReportType reportType) {
         Report report = new Report(reportType, currentUser);
         report.setData(monitor.getAllTimeTrackers());
+        attachUsageHistory(report);
         logger.info("Đã tạo báo cáo loại: {}", reportType.getDisplayName());
         return report;
     }
@@ -146,10 +246,64 @@ public class MainController {
         Report report = new Report(ReportType.CUSTOM, currentUser);
         report.setDateRange(startDate, endDate);
         report.setData(monitor.getAllTimeTrackers());
+        attachUsageHistory(report);
         logger.info("Đã tạo báo cáo tùy chỉnh từ {} đến {}", startDate, endDate);
         return report;
     }
 
+    /**
+     * Đọc tổng thời gian sử dụng theo ứng dụng và theo nhóm trong khoảng ngày của báo cáo, cộng thêm
+     * khoảng đang mở. Khoảng theo
+     * ngày được trả lời từ tầng tổng hợp; chỉ khi không tầng nào đáp ứng mới quét dữ liệu thô
+     * (tệp cột theo ngày và nhật ký).
+     */
+    private void attachUsageHistory(Report report) {
+        if (dataStorage == null || report.getStartDate() == null || report.getEndDate() == null) {
+            return;
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        long from = toEpochNanos(report.getStartDate().atStartOfDay(zone).toInstant());
+        long to = toEpochNanos(report.getEndDate().plusDays(1).atStartOfDay(zone).toInstant());
+        try {
+            Map<String, Long> usage = usageRollup.queryApplications(from, to);
+            Map<String, Long> groupUsage = usageRollup.queryGroups(from, to);
+            if (usage == null) {
+                if (usageJournal == null) {
+                    return;
+                }
+                usage = dataStorage.getDayArchive().totalsByApplication(usageJournal.segmentsForRead(), from, to);
+                // Dữ liệu thô không mang nhóm, nên quy về nhóm theo thành viên hiện tại
+                groupUsage = new HashMap<>();
+                for (Map.Entry<String, Long> entry : usage.entrySet()) {
+                    for (String group : groupsOf(entry.getKey())) {
+                        groupUsage.merge(group, entry.getValue(), Long::sum);
+                    }
+                }
+            }
+
+            Map<String, Long> totals = usage;
+            Map<String, Long> groupTotals = groupUsage;
+            monitor.visitOpenInterval((app, start, end) -> {
+                long clipped = Math.min(end, to) - Math.max(start, from);
+                if (clipped > 0) {
+                    totals.merge(app.getName(), clipped, Long::sum);
+                    for (String group : groupsOf(app.getName())) {
+                        groupTotals.merge(group, clipped, Long::sum);
+                    }
+                }
+            });
+            report.setUsageHistory(totals);
+            report.setGroupUsageHistory(groupTotals);
+        } catch (IOException e) {
+            logger.error("Không thể đọc lịch sử sử dụng", e);
+        }
+    }
+
+    private static long toEpochNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
     public void saveData() {
         try {
             dataStorage.saveApplicationGroups(new ArrayList<>(groupList));
@@ -202,6 +356,24 @@ public class MainController {
         saveData();
         notifier.cleanup();
         monitor.cleanup();
+        if (journalCompactor != null) {
+            journalCompactor.stop();
+        }
+        if (usageMaintenance != null) {
+            // Lần lưu cuối chạy sau khi đã dừng theo dõi; shutdown() hủy lịch định kỳ nhưng vẫn chạy tác vụ này
+            usageMaintenance.execute(this::maintainUsageHistory);
+            usageMaintenance.shutdown();
+            try {
+                if (!usageMaintenance.awaitTermination(10, TimeUnit.SECONDS)) {
+                    logger.warn("Chưa lưu xong dữ liệu tổng hợp khi thoát");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (usageJournal != null) {
+            usageJournal.close();
+        }
         logger.info("Ứng dụng đã đóng thành công");
     }
 
@@ -245,6 +417,12 @@ public class MainController {
         currentUser.getSettings().setMinimizeToTray(settings.isMinimizeToTray());
         currentUser.getSettings().setAutoStartMonitoring(settings.isAutoStartMonitoring());
         currentUser.getSettings().setMonitorMode(settings.getMonitorMode());
+        currentUser.getSettings().setMaxTrackedWindows(settings.getMaxTrackedWindows());
+        currentUser.getSettings().setRenotifyIntervalMinutes(settings.getRenotifyIntervalMinutes());
+        currentUser.getSettings().setKillProcessTree(settings.isKillProcessTree());
+        monitor.getEnforcer().setKillDescendants(settings.isKillProcessTree());
+        // Ngưỡng cảnh báo thay đổi thì các mốc hẹn giờ cảnh báo cũng phải tính lại
+        monitor.invalidateLimitSchedule();
 
         boolean saved = currentUser.saveSettings();
         if (saved) {
@@ -29,6 +29,9 @@ public class UserSettings implements IConfigurable {
     private boolean minimizeToTray;
     private boolean autoStartMonitoring;
     private MonitorMode monitorMode;
+    private int maxTrackedWindows;
+    private int renotifyIntervalMinutes;
+    private boolean killProcessTree;
 
     public UserSettings() {
         this.notificationType = NotificationType.POPUP;
@@ -39,6 +42,9 @@ public class UserSettings implements IConfigurable {
         this.minimizeToTray = true;
         this.autoStartMonitoring = true;
         this.monitorMode = MonitorMode.NORMAL;
+        this.maxTrackedWindows = 5000;
+        this.renotifyIntervalMinutes = 10;
+        this.killProcessTree = false;
     }
 
     @Override
@@ -80,6 +86,16 @@ public class UserSettings implements IConfigurable {
                     properties.getProperty("autoStartMonitoring", "true")
             );
 
+            this.maxTrackedWindows = Integer.parseInt(
+                    properties.getProperty("maxTrackedWindows", "5000")
+            );
+            this.renotifyIntervalMinutes = Integer.parseInt(
+                    properties.getProperty("renotifyIntervalMinutes", "10")
+            );
+            this.killProcessTree = Boolean.parseBoolean(
+                    properties.getProperty("killProcessTree", "false")
+            );
+
             try {
                 this.monitorMode = MonitorMode.valueOf(
                         properties.getProperty("monitorMode", MonitorMode.NORMAL.name())
@@ -116,6 +132,9 @@ public class UserSettings implements IConfigurable {
         properties.setProperty("minimizeToTray", String.valueOf(minimizeToTray));
         properties.setProperty("autoStartMonitoring", String.valueOf(autoStartMonitoring));
         properties.setProperty("monitorMode", monitorMode.name());
+        properties.setProperty("maxTrackedWindows", String.valueOf(maxTrackedWindows));
+        properties.setProperty("renotifyIntervalMinutes", String.valueOf(renotifyIntervalMinutes));
+        properties.setProperty("killProcessTree", String.valueOf(killProcessTree));
 
         try (FileOutputStream fos = new FileOutputStream(configFile)) {
             properties.store(fos, "ProMonitor User Settings");
@@ -189,4 +208,31 @@ public class UserSettings implements IConfigurable {
     public void setMonitorMode(MonitorMode monitorMode) {
         this.monitorMode = monitorMode;
     }
-}
\ No newline at end of file
+
+    public int getMaxTrackedWindows() {
+        return maxTrackedWindows;
+    }
+
+    public void setMaxTrackedWindows(int maxTrackedWindows) {
+        this.maxTrackedWindows = maxTrackedWindows;
+    }
+
+    public int getRenotifyIntervalMinutes() {
+        return renotifyIntervalMinutes;
+    }
+
+    public void setRenotifyIntervalMinutes(int renotifyIntervalMinutes) {
+        this.renotifyIntervalMinutes = renotifyIntervalMinutes;
+    }
+
+    /**
+     * Khi chặn ứng dụng có kết thúc luôn các tiến trình con hay không; mặc định chỉ kết thúc pid đó.
+     */
+    public boolean isKillProcessTree() {
+        return killProcessTree;
+    }
+
+    public void setKillProcessTree(boolean killProcessTree) {
+        this.killProcessTree = killProcessTree;
+    }
+}
@@ -0,0 +1,116 @@
+package com.promonitor.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Chạy nhịp lấy mẫu trên một luồng riêng với khoảng nghỉ được tính lại sau mỗi nhịp.
+ * {@link #wakeUp()} cắt ngang khoảng nghỉ để lấy mẫu ngay, ví dụ khi nhận được
+ * tín hiệu đổi cửa sổ tiền cảnh.
+ */
+public class AdaptiveTickScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveTickScheduler.class);
+
+    private final Runnable tick;
+    private final LongSupplier nextDelayMillis;
+    private final Object lock = new Object();
+
+    private ExecutorService executor;
+    private volatile boolean running;
+    private boolean wakeRequested;
+
+    private volatile long tickCount;
+    private volatile long wakeCount;
+    private volatile long lastDelayMillis;
+
+    public AdaptiveTickScheduler(Runnable tick, LongSupplier nextDelayMillis) {
+        this.tick = tick;
+        this.nextDelayMillis = nextDelayMillis;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        executor = Executors.newSingleThreadExecutor();
+        executor.execute(this::runLoop);
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        wakeUp();
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    public void wakeUp() {
+        synchronized (lock) {
+            wakeRequested = true;
+            lock.notifyAll();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            tick.run();
+            tickCount++;
+
+            long delay = nextDelayMillis.getAsLong();
+            lastDelayMillis = delay;
+
+            synchronized (lock) {
+                try {
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+                    long remaining = delay;
+                    // Lặp lại khi bị đánh thức giả để giữ đúng khoảng nghỉ
+                    while (running && !wakeRequested && remaining > 0) {
+                        lock.wait(remaining);
+                        remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    }
+                    if (wakeRequested) {
+                        wakeCount++;
+                    }
+                    wakeRequested = false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                    logger.debug("Luồng lấy mẫu bị ngắt");
+                }
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public long getWakeCount() {
+        return wakeCount;
+    }
+
+    public long getLastDelayMillis() {
+        return lastDelayMillis;
+    }
+}
@@ -0,0 +1,210 @@
+package com.promonitor.model;
+
+import com.promonitor.model.platform.ForegroundSample;
+
+import java.util.Arrays;
+
+/**
+ * Bảng ký hiệu gán cho mỗi bộ (tiêu đề đã chuẩn hóa, tệp thực thi, PID) một id int
+ * dày đặc. Tiêu đề chỉ được băm và so sánh một lần khi cửa sổ thay đổi; sau đó mọi
+ * tra cứu trên luồng lấy mẫu đều dùng id. Chỉ luồng lấy mẫu được ghi vào bảng.
+ */
+public class AppIdentityTable {
+    public static final String UNKNOWN_TITLE = "Unknown";
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] executables = new String[INITIAL_CAPACITY];
+    private int[] processIds = new int[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int count;
+    private int live;
+
+    // Các id đã được giải phóng, cấp lại trước khi mở rộng dải id
+    private int[] freeIds = new int[INITIAL_CAPACITY];
+    private int freeCount;
+
+    // Chỉ mục băm địa chỉ mở: lưu id + 1, 0 là ô trống
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    public int intern(ForegroundSample sample) {
+        if (sample.getTitleLength() == 0) {
+            return intern(UNKNOWN_TITLE, sample.getExecutablePath(), sample.getProcessId());
+        }
+
+        int hash = hash(sample.getTitleHash(), sample.getExecutablePath(), sample.getProcessId());
+        int mask = slots.length - 1;
+        for (int index = hash & mask; slots[index] != 0; index = (index + 1) & mask) {
+            int id = slots[index] - 1;
+            if (hashes[id] == hash && processIds[id] == sample.getProcessId()
+                    && executables[id].equals(sample.getExecutablePath())
+                    && sameTitle(titles[id], sample)) {
+                return id;
+            }
+        }
+
+        // Chỉ tạo chuỗi tiêu đề khi gặp một cửa sổ thực sự mới
+        return add(sample.titleAsString(), sample.getExecutablePath(), sample.getProcessId(), hash);
+    }
+
+    public int intern(String title, String executablePath, int processId) {
+        int id = find(title, executablePath, processId);
+        if (id >= 0) {
+            return id;
+        }
+        String exe = executablePath != null ? executablePath : "";
+        return add(title, exe, processId, hash(title.hashCode(), exe, processId));
+    }
+
+    /**
+     * @return id của bộ đã được đăng ký, hoặc -1 nếu chưa có
+     */
+    public int find(String title, String executablePath, int processId) {
+        String exe = executablePath != null ? executablePath : "";
+        int hash = hash(title.hashCode(), exe, processId);
+        int mask = slots.length - 1;
+        for (int index = hash & mask; slots[index] != 0; index = (index + 1) & mask) {
+            int id = slots[index] - 1;
+            if (hashes[id] == hash && processIds[id] == processId
+                    && executables[id].equals(exe) && titles[id].equals(title)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    public int find(Application application) {
+        return find(application.getName(), application.getExecutablePath(), application.getProcessId());
+    }
+
+    private int add(String title, String executablePath, int processId, int hash) {
+        if (freeCount > 0) {
+            return store(freeIds[--freeCount], title, executablePath, processId, hash);
+        }
+
+        if (count == titles.length) {
+            int capacity = titles.length << 1;
+            titles = Arrays.copyOf(titles, capacity);
+            executables = Arrays.copyOf(executables, capacity);
+            processIds = Arrays.copyOf(processIds, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            rebuildSlots(capacity << 1);
+        }
+
+        return store(count++, title, executablePath, processId, hash);
+    }
+
+    private int store(int id, String title, String executablePath, int processId, int hash) {
+        titles[id] = title;
+        executables[id] = executablePath;
+        processIds[id] = processId;
+        hashes[id] = hash;
+        insertSlot(id);
+        live++;
+        return id;
+    }
+
+    /**
+     * Trả id về bảng để dùng lại; id không còn hợp lệ sau lời gọi này.
+     */
+    public void release(int id) {
+        if (id < 0 || id >= count || titles[id] == null) {
+            return;
+        }
+
+        int mask = slots.length - 1;
+        int index = hashes[id] & mask;
+        while (slots[index] != id + 1) {
+            index = (index + 1) & mask;
+        }
+        slots[index] = 0;
+
+        // Dồn các ô phía sau về chỗ trống để chuỗi dò không bị đứt
+        int hole = index;
+        for (index = (hole + 1) & mask; slots[index] != 0; index = (index + 1) & mask) {
+            int home = hashes[slots[index] - 1] & mask;
+            boolean movable = hole <= index
+                    ? home <= hole || home > index
+                    : home <= hole && home > index;
+            if (movable) {
+                slots[hole] = slots[index];
+                slots[index] = 0;
+                hole = index;
+            }
+        }
+
+        titles[id] = null;
+        executables[id] = null;
+        live--;
+
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIds.length << 1);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    private void insertSlot(int id) {
+        int mask = slots.length - 1;
+        int index = hashes[id] & mask;
+        while (slots[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        slots[index] = id + 1;
+    }
+
+    private void rebuildSlots(int capacity) {
+        slots = new int[capacity];
+        for (int id = 0; id < count; id++) {
+            if (titles[id] != null) {
+                insertSlot(id);
+            }
+        }
+    }
+
+    // Băm tiêu đề giống String.hashCode để tiêu đề từ bộ đệm và từ chuỗi cho cùng kết quả
+    private static int hash(int titleHash, String executablePath, int processId) {
+        int h = titleHash;
+        h = 31 * h + executablePath.hashCode();
+        h = 31 * h + processId;
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean sameTitle(String title, ForegroundSample sample) {
+        int length = sample.getTitleLength();
+        if (title.length() != length) {
+            return false;
+        }
+        char[] buffer = sample.titleBuffer();
+        for (int i = 0; i < length; i++) {
+            if (title.charAt(i) != buffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getTitle(int id) {
+        return titles[id];
+    }
+
+    public String getExecutablePath(int id) {
+        return executables[id];
+    }
+
+    public int getProcessId(int id) {
+        return processIds[id];
+    }
+
+    public int size() {
+        return live;
+    }
+
+    /**
+     * @return giới hạn trên (không bao gồm) của mọi id đã từng được cấp
+     */
+    public int idBound() {
+        return count;
+    }
+}
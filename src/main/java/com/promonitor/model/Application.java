@@ -8,9 +8,6 @@ import javafx.scene.image.Image;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -116,93 +113,26 @@ public class Application {
         return name.get() + "_" + processId.get();
     }
 
+    /**
+     * Kết thúc tiến trình qua {@link ProcessHandle#destroyForcibly()} mà không chờ nó thoát.
+     * Luồng theo dõi dùng {@link EnforcementExecutor} để kết thúc bất đồng bộ theo lô.
+     */
     public boolean terminate() {
-        String os = System.getProperty("os.name").toLowerCase();
-
-        try {
-            Process process;
-            if (os.contains("win")) {
-                process = Runtime.getRuntime().exec("taskkill /F /PID " + this.getProcessId());
-            } else if (os.contains("mac") || os.contains("nix") || os.contains("nux")) {
-                process = Runtime.getRuntime().exec("kill -9 " + this.getProcessId());
-            } else {
-                logger.warn("Hệ điều hành không được hỗ trợ: " + os);
-                return false;
-            }
-
-            int exitCode = process.waitFor();
-            boolean success = exitCode == 0;
-
-            if (success) {
-                this.setActive(false);
-                logger.info("Đã kết thúc ứng dụng {} (PID: {})", this.getName(), this.getProcessId());
-            } else {
-                logger.warn("Không thể kết thúc ứng dụng {} (PID: {})", this.getName(), this.getProcessId());
-            }
-
-            return success;
-        } catch (IOException | InterruptedException e) {
-            logger.error("Lỗi khi kết thúc ứng dụng " + this.getName(), e);
-            return false;
+        boolean success = ProcessHandle.of(this.getProcessId())
+                .map(ProcessHandle::destroyForcibly)
+                .orElse(false);
+
+        if (success) {
+            this.setActive(false);
+            logger.info("Đã kết thúc ứng dụng {} (PID: {})", this.getName(), this.getProcessId());
+        } else {
+            logger.warn("Không thể kết thúc ứng dụng {} (PID: {})", this.getName(), this.getProcessId());
         }
+        return success;
     }
 
     public static List<Application> getRunningApplications() {
-        List<Application> applications = new ArrayList<>();
-        String os = System.getProperty("os.name").toLowerCase();
-
-        try {
-            Process process = null;
-            BufferedReader reader = null;
-            String line;
-
-            if (os.contains("win")) {
-                process = Runtime.getRuntime().exec("tasklist /FO CSV /NH");
-                reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-                while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split("\",\"");
-                    if (parts.length >= 2) {
-                        String name = parts[0].replace("\"", "");
-                        String pidStr = parts[1].replace("\"", "");
-                        try {
-                            int pid = Integer.parseInt(pidStr);
-                            applications.add(new Application(name, pid));
-                        } catch (NumberFormatException e) {
-                            // Bỏ qua nếu không phân tích được PID
-                        }
-                    }
-                }
-            } else if (os.contains("mac") || os.contains("nix") || os.contains("nux")) {
-                process = Runtime.getRuntime().exec("ps -e -o pid,comm");
-                reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-
-                reader.readLine();
-
-                while ((line = reader.readLine()) != null) {
-                    line = line.trim();
-                    String[] parts = line.split("\\s+", 2);
-                    if (parts.length == 2) {
-                        try {
-                            int pid = Integer.parseInt(parts[0]);
-                            String name = parts[1];
-                            applications.add(new Application(name, pid));
-                        } catch (NumberFormatException e) {
-                        }
-                    }
-                }
-            } else {
-                logger.warn("Hệ điều hành không được hỗ trợ: {}", os);
-            }
-
-            reader.close();
-            process.waitFor();
-
-        } catch (IOException | InterruptedException e) {
-            logger.error("Lỗi khi lấy danh sách tiến trình", e);
-        }
-
-        return applications;
+        return ProcessCatalog.getDefault().listApplications();
     }
 
     public static List<Application> findRunningApplicationsByName(String name) {
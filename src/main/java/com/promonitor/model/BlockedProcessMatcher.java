@@ -0,0 +1,85 @@
+package com.promonitor.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * So khớp tên ảnh tiến trình với danh sách chặn. Một tên bị chặn chỉ khớp khi trùng nguyên văn
+ * tên ảnh (bỏ thư mục và đuôi ".exe"), không phân biệt hoa thường. Bất biến; được dựng lại mỗi khi
+ * danh sách chặn thay đổi.
+ */
+public final class BlockedProcessMatcher {
+    public static final BlockedProcessMatcher EMPTY = new BlockedProcessMatcher(Collections.emptyList());
+
+    // Vỏ hệ thống và tiến trình quản lý phiên: kết thúc chúng sẽ làm mất cả phiên làm việc
+    private static final Set<String> SYSTEM_PROCESSES = Set.of(
+            "explorer", "cmd", "powershell", "pwsh", "conhost", "windowsterminal", "wt", "dwm",
+            "winlogon", "csrss", "lsass", "services", "svchost", "sihost", "taskmgr",
+            "sh", "bash", "zsh", "fish", "dash", "ksh", "tcsh", "login", "sshd", "init", "systemd",
+            "xorg", "xwayland", "gnome-shell", "gnome-terminal-server", "konsole", "xterm",
+            "plasmashell", "kwin_x11", "kwin_wayland",
+            "finder", "dock", "loginwindow", "windowserver", "terminal");
+
+    private static final long SELF_PID = ProcessHandle.current().pid();
+    private static final String SELF_IMAGE = ProcessHandle.current().info().command()
+            .map(BlockedProcessMatcher::imageName).orElse("");
+
+    private final Map<String, String> blockedByImage = new HashMap<>();
+
+    public BlockedProcessMatcher(Collection<String> blockedNames) {
+        for (String name : blockedNames) {
+            if (name == null || name.isEmpty()) {
+                continue;
+            }
+            String image = imageName(name);
+            if (!isProtectedImage(image)) {
+                blockedByImage.putIfAbsent(image, name);
+            }
+        }
+    }
+
+    /**
+     * @return tên bị chặn trùng với tên ảnh của {@code processName}, hoặc null
+     */
+    public String match(String processName) {
+        if (blockedByImage.isEmpty() || processName == null || processName.isEmpty()) {
+            return null;
+        }
+        return blockedByImage.get(imageName(processName));
+    }
+
+    public boolean isEmpty() {
+        return blockedByImage.isEmpty();
+    }
+
+    public int size() {
+        return blockedByImage.size();
+    }
+
+    /**
+     * @return tên ảnh để so khớp: tên tệp viết thường, bỏ đuôi ".exe"
+     */
+    public static String imageName(String processName) {
+        String name = LimitTarget.executableName(processName);
+        return name.endsWith(".exe") ? name.substring(0, name.length() - 4) : name;
+    }
+
+    /**
+     * @return true nếu tên ảnh thuộc danh sách không bao giờ được chặn: chính ứng dụng này và vỏ hệ thống
+     */
+    public static boolean isProtectedImage(String image) {
+        return image.isEmpty() || image.equals(SELF_IMAGE) || SYSTEM_PROCESSES.contains(image);
+    }
+
+    /**
+     * @return true nếu không được phép kết thúc tiến trình này
+     */
+    public static boolean isProtected(int processId, String executablePath) {
+        return processId <= 0 || processId == SELF_PID
+                || (executablePath != null && !executablePath.isEmpty()
+                && isProtectedImage(imageName(executablePath)));
+    }
+}
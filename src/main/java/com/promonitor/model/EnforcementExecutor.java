@@ -0,0 +1,222 @@
+package com.promonitor.model;
+
+import com.promonitor.model.platform.ProcessInfo;
+import com.promonitor.util.IntObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kết thúc tiến trình bằng {@link ProcessHandle#destroyForcibly()} trên một luồng riêng, không tạo
+ * tiến trình taskkill/kill và không bắt bên gọi chờ. Mọi tiến trình tìm thấy trong một chu kỳ được
+ * gửi thành một lô; mỗi tiến trình có một {@link CompletableFuture} hoàn tất khi nó thực sự thoát.
+ * Khi bật kết thúc cả cây, danh mục được quét lại trước mỗi lô; bảng cha-con chỉ dựng lại khi
+ * bảng tiến trình thay đổi và mỗi tiến trình con được đối chiếu thời điểm bắt đầu trước khi kết thúc.
+ */
+public class EnforcementExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(EnforcementExecutor.class);
+
+    private static final long EXIT_TIMEOUT_MS = 5000;
+    // Thời điểm bắt đầu đọc từ /proc và từ ProcessHandle có thể lệch nhau do làm tròn
+    private static final long START_TIME_TOLERANCE_MS = 1000;
+    private static final ProcessInfo[] NO_CHILDREN = new ProcessInfo[0];
+
+    private final ProcessCatalog catalog;
+    private final ExecutorService executor;
+    private volatile boolean killDescendants;
+
+    // Chỉ luồng thực thi truy cập
+    private IntObjectHashMap<ProcessInfo[]> children = new IntObjectHashMap<>();
+    private long childrenBuiltAt = -1;
+
+    private final AtomicLong requestedCount = new AtomicLong();
+    private final AtomicLong terminatedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public EnforcementExecutor(ProcessCatalog catalog, boolean killDescendants) {
+        this.catalog = catalog;
+        this.killDescendants = killDescendants;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "promonitor-enforcer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public CompletableFuture<Boolean> terminate(int processId) {
+        ProcessInfo process = catalog.getProcess(processId);
+        if (process == null) {
+            process = new ProcessInfo(processId, 0, 0, "", "");
+        }
+        return terminateAll(Collections.singletonList(process)).get(0);
+    }
+
+    /**
+     * Gửi một lô tiến trình cần kết thúc và trả về ngay.
+     *
+     * @return kết quả theo đúng thứ tự của {@code processes}; true khi tiến trình đã thoát
+     */
+    public List<CompletableFuture<Boolean>> terminateAll(Collection<ProcessInfo> processes) {
+        List<ProcessInfo> batch = new ArrayList<>(processes);
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+        if (batch.isEmpty()) {
+            return results;
+        }
+
+        requestedCount.addAndGet(batch.size());
+        try {
+            executor.execute(() -> runBatch(batch, results));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Bộ thực thi chặn đã dừng, bỏ {} yêu cầu kết thúc tiến trình", batch.size());
+            results.forEach(result -> result.complete(false));
+        }
+        return results;
+    }
+
+    private void runBatch(List<ProcessInfo> batch, List<CompletableFuture<Boolean>> results) {
+        if (killDescendants) {
+            // Danh mục có thể đã cũ hàng giờ; pid cũ có thể đã thuộc về tiến trình khác
+            catalog.refresh();
+            long changed = catalog.getChangeSequence();
+            if (changed != childrenBuiltAt) {
+                childrenBuiltAt = changed;
+                rebuildChildren();
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            ProcessInfo process = batch.get(i);
+            CompletableFuture<Boolean> result = results.get(i);
+            try {
+                kill(process).whenComplete((exited, error) -> {
+                    boolean success = error == null && Boolean.TRUE.equals(exited);
+                    (success ? terminatedCount : failedCount).incrementAndGet();
+                    if (success) {
+                        logger.info("Đã kết thúc tiến trình {}", process);
+                    } else {
+                        logger.warn("Không thể kết thúc tiến trình {}", process);
+                    }
+                    result.complete(success);
+                });
+            } catch (RuntimeException e) {
+                logger.error("Lỗi khi kết thúc tiến trình " + process, e);
+                failedCount.incrementAndGet();
+                result.complete(false);
+            }
+        }
+    }
+
+    private CompletableFuture<Boolean> kill(ProcessInfo process) {
+        Optional<ProcessHandle> found = ProcessHandle.of(process.getProcessId());
+        if (found.isEmpty()) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        ProcessHandle handle = found.get();
+        if (!isSameProcess(handle, process)) {
+            // pid đã thuộc về một tiến trình khác
+            return CompletableFuture.completedFuture(false);
+        }
+
+        if (killDescendants) {
+            killDescendants(process.getProcessId());
+        }
+        if (!handle.destroyForcibly()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return handle.onExit()
+                .thenApply(exited -> true)
+                .completeOnTimeout(false, EXIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean isSameProcess(ProcessHandle handle, ProcessInfo process) {
+        if (process.getStartTimeMillis() <= 0) {
+            return true;
+        }
+        long actualStart = handle.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+        return actualStart <= 0 || Math.abs(actualStart - process.getStartTimeMillis()) <= START_TIME_TOLERANCE_MS;
+    }
+
+    private void killDescendants(int root) {
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = root;
+        // Bảng cha-con cũ có thể tạo vòng khi pid bị dùng lại; giới hạn số bước để không lặp mãi
+        int budget = children.size() * 4 + 16;
+        while (top > 0 && budget-- > 0) {
+            int parent = stack[--top];
+            ProcessInfo[] direct = children.get(parent);
+            for (ProcessInfo child : direct != null ? direct : NO_CHILDREN) {
+                int childId = child.getProcessId();
+                if (childId == root) {
+                    continue;
+                }
+                Optional<ProcessHandle> handle = ProcessHandle.of(childId);
+                if (handle.isEmpty() || !isSameProcess(handle.get(), child)) {
+                    // Tiến trình con đã thoát hoặc pid đã bị dùng lại: không đi tiếp nhánh này
+                    continue;
+                }
+                handle.get().destroyForcibly();
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = childId;
+            }
+        }
+    }
+
+    private void rebuildChildren() {
+        IntObjectHashMap<ProcessInfo[]> map = new IntObjectHashMap<>();
+        for (ProcessInfo process : catalog.getProcesses()) {
+            int parent = process.getParentProcessId();
+            if (parent <= 0 || parent == process.getProcessId()) {
+                continue;
+            }
+            ProcessInfo[] siblings = map.get(parent);
+            ProcessInfo[] grown = siblings == null ? new ProcessInfo[1] : Arrays.copyOf(siblings, siblings.length + 1);
+            grown[grown.length - 1] = process;
+            map.put(parent, grown);
+        }
+        children = map;
+    }
+
+    public boolean isKillDescendants() {
+        return killDescendants;
+    }
+
+    public void setKillDescendants(boolean killDescendants) {
+        this.killDescendants = killDescendants;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public long getRequestedCount() {
+        return requestedCount.get();
+    }
+
+    public long getTerminatedCount() {
+        return terminatedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
@@ -3,14 +3,14 @@ package com.promonitor.model;
 import com.promonitor.model.enums.LimitType;
 
 import java.time.Duration;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 public class Limit {
     private LimitType type;
     private Duration value;
     private Schedule schedule;
-    private LocalDateTime lastReset;
+    // Luồng lấy mẫu ghi, giao diện đọc
+    private volatile LocalDateTime lastReset;
 
     public Limit(LimitType type, Duration value) {
         this.type = type;
@@ -26,31 +26,6 @@ public class Limit {
         this(type, Duration.ofHours(hours).plusMinutes(minutes));
     }
 
-    public boolean isExceeded(Duration usageTime) {
-        if (type == LimitType.SCHEDULE) {
-            return !schedule.isCurrentTimeWithinSchedule();
-        }
-
-        return usageTime.compareTo(value) > 0;
-    }
-
-    public boolean needsReset() {
-        LocalDateTime now = LocalDateTime.now();
-
-        switch (type) {
-            case DAILY:
-                return !now.toLocalDate().equals(lastReset.toLocalDate());
-            case WEEKLY:
-                LocalDate nowDate = now.toLocalDate();
-                LocalDate lastResetDate = lastReset.toLocalDate();
-                LocalDate startOfWeekNow = nowDate.minusDays(nowDate.getDayOfWeek().getValue() - 1);
-                LocalDate startOfWeekLastReset = lastResetDate.minusDays(lastResetDate.getDayOfWeek().getValue() - 1);
-                return !startOfWeekNow.equals(startOfWeekLastReset);
-            default:
-                return false;
-        }
-    }
-
     public void reset() {
         lastReset = LocalDateTime.now();
     }
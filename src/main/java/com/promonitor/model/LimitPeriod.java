@@ -0,0 +1,76 @@
+package com.promonitor.model;
+
+import com.promonitor.model.enums.LimitState;
+import com.promonitor.model.enums.LimitType;
+
+/**
+ * Trạng thái của một giới hạn trong kỳ hiện tại. {@link Limit} nằm trong bảng giới hạn bất biến
+ * được đọc từ nhiều luồng nên không mang trạng thái thay đổi được; {@link Monitor} giữ đối tượng
+ * này cho từng giới hạn và chỉ truy cập nó trên luồng lấy mẫu.
+ */
+final class LimitPeriod {
+    // Kỳ (ngày/tuần) mà giới hạn đang tính, và tổng thời gian sử dụng của đối tượng tại đầu kỳ
+    private long epoch = LimitRollover.NO_EPOCH;
+    private long usageBaselineNanos;
+
+    // Chỉ tiến OK -> WARNED -> EXCEEDED -> BLOCKED cho tới khi đặt lại
+    private LimitState state = LimitState.OK;
+    private long lastNotifiedNanos;
+
+    /**
+     * @param currentEpoch số kỳ hiện tại của loại giới hạn này, xem {@link LimitRollover}
+     */
+    boolean needsReset(LimitType type, long currentEpoch) {
+        return type != LimitType.SCHEDULE && epoch != currentEpoch;
+    }
+
+    /**
+     * Bắt đầu kỳ mới: thời gian sử dụng được tính lại từ mốc {@code usageBaselineNanos}.
+     */
+    void reset(long epoch, long usageBaselineNanos) {
+        this.epoch = epoch;
+        this.usageBaselineNanos = usageBaselineNanos;
+        this.state = LimitState.OK;
+    }
+
+    LimitState getState() {
+        return state;
+    }
+
+    /**
+     * Chuyển sang trạng thái {@code next} nếu nó đứng sau trạng thái hiện tại.
+     *
+     * @return true nếu đã chuyển, tức là người gọi cần phát đúng một sự kiện cho lần chuyển này
+     */
+    boolean advanceTo(LimitState next, long nanos) {
+        if (next.ordinal() <= state.ordinal()) {
+            return false;
+        }
+        state = next;
+        lastNotifiedNanos = nanos;
+        return true;
+    }
+
+    /**
+     * @param intervalNanos khoảng nhắc lại, 0 để không bao giờ nhắc lại
+     */
+    boolean isRenotifyDue(long nanos, long intervalNanos) {
+        return intervalNanos > 0 && nanos - lastNotifiedNanos >= intervalNanos;
+    }
+
+    void markNotified(long nanos) {
+        lastNotifiedNanos = nanos;
+    }
+
+    long getLastNotifiedNanos() {
+        return lastNotifiedNanos;
+    }
+
+    /**
+     * @param totalUsageNanos tổng thời gian sử dụng tích lũy của đối tượng bị giới hạn
+     * @return phần thời gian sử dụng thuộc kỳ hiện tại
+     */
+    long getUsageNanos(long totalUsageNanos) {
+        return Math.max(0, totalUsageNanos - usageBaselineNanos);
+    }
+}
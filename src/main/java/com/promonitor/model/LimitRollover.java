@@ -0,0 +1,88 @@
+package com.promonitor.model;
+
+import com.promonitor.model.enums.LimitType;
+import com.promonitor.model.interfaces.IClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giữ số kỳ hiện tại của giới hạn ngày và tuần (số ngày, số tuần tính từ 1970, tuần bắt đầu
+ * thứ Hai). Số kỳ chỉ đổi khi {@link #refresh()} được gọi, thường là đúng lúc nửa đêm,
+ * nên kiểm tra một giới hạn đã sang kỳ mới hay chưa chỉ là một phép so sánh số nguyên.
+ */
+public class LimitRollover {
+    public static final long NO_EPOCH = -1;
+
+    private final IClock clock;
+    private final ZoneId zone;
+
+    private volatile long dayEpoch;
+    private volatile long weekEpoch;
+
+    public LimitRollover(IClock clock) {
+        this(clock, ZoneId.systemDefault());
+    }
+
+    public LimitRollover(IClock clock, ZoneId zone) {
+        this.clock = clock;
+        this.zone = zone;
+        refresh();
+    }
+
+    /**
+     * Tính lại số kỳ theo giờ hệ thống.
+     *
+     * @return true nếu đã sang ngày mới
+     */
+    public boolean refresh() {
+        LocalDate today = Instant.ofEpochMilli(clock.currentTimeMillis()).atZone(zone).toLocalDate();
+        long day = dayEpoch(today);
+        if (day == dayEpoch) {
+            return false;
+        }
+        dayEpoch = day;
+        weekEpoch = weekEpoch(today);
+        return true;
+    }
+
+    public long currentEpoch(LimitType type) {
+        return switch (type) {
+            case DAILY -> dayEpoch;
+            case WEEKLY -> weekEpoch;
+            default -> 0;
+        };
+    }
+
+    /**
+     * @return ngày đầu tiên của kỳ hiện tại (hôm nay, hoặc thứ Hai của tuần này)
+     */
+    public LocalDate currentEpochStart(LimitType type) {
+        return switch (type) {
+            case WEEKLY -> LocalDate.ofEpochDay(weekEpoch * 7 - 3);
+            default -> LocalDate.ofEpochDay(dayEpoch);
+        };
+    }
+
+    /**
+     * @return số nano giây tới nửa đêm kế tiếp theo giờ địa phương; đầu tuần cũng rơi vào nửa đêm
+     */
+    public long nanosUntilNextRollover() {
+        ZonedDateTime now = Instant.ofEpochMilli(clock.currentTimeMillis()).atZone(zone);
+        ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(zone);
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(1), Duration.between(now, midnight).toNanos());
+    }
+
+    public static long dayEpoch(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    public static long weekEpoch(LocalDate date) {
+        // 01/01/1970 là thứ Năm, dịch 3 ngày để tuần bắt đầu từ thứ Hai
+        return Math.floorDiv(date.toEpochDay() + 3, 7);
+    }
+}
@@ -0,0 +1,122 @@
+package com.promonitor.model;
+
+import com.promonitor.model.enums.LimitTargetType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Đối tượng giới hạn theo mẫu: tên tệp thực thi, mẫu tiêu đề (*, ?) hoặc biểu thức chính quy.
+ * Khác với {@link Application}, mẫu không phụ thuộc PID nên vẫn khớp khi ứng dụng được mở lại.
+ * So khớp không phân biệt hoa thường.
+ */
+public class LimitTarget {
+    private final LimitTargetType type;
+    private final String pattern;
+    private final Pattern compiled;
+
+    public LimitTarget(LimitTargetType type, String pattern) {
+        if (pattern == null || pattern.isBlank()) {
+            throw new IllegalArgumentException("Mẫu không được để trống");
+        }
+        this.type = type;
+        this.pattern = type == LimitTargetType.EXECUTABLE ? executableName(pattern.trim()) : pattern;
+        this.compiled = switch (type) {
+            case EXECUTABLE -> null;
+            case TITLE_GLOB -> Pattern.compile(globToRegex(pattern),
+                    Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+            case TITLE_REGEX -> Pattern.compile(pattern, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        };
+    }
+
+    public boolean matches(String title, String executablePath) {
+        if (type == LimitTargetType.EXECUTABLE) {
+            return executablePath != null && pattern.equals(executableName(executablePath));
+        }
+        return title != null && matchesTitle(title);
+    }
+
+    boolean matchesTitle(String title) {
+        return type == LimitTargetType.TITLE_GLOB
+                ? compiled.matcher(title).matches()
+                : compiled.matcher(title).find();
+    }
+
+    /**
+     * @return true nếu là mẫu tiêu đề không chứa ký tự đại diện, tức so khớp nguyên văn
+     */
+    boolean isLiteralTitle() {
+        return type == LimitTargetType.TITLE_GLOB && pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0;
+    }
+
+    /**
+     * @return các đoạn nguyên văn bắt buộc phải có trong tiêu đề; rỗng với biểu thức chính quy
+     */
+    List<String> literalFragments() {
+        List<String> fragments = new ArrayList<>();
+        if (type != LimitTargetType.TITLE_GLOB) {
+            return fragments;
+        }
+        for (String fragment : pattern.split("[*?]")) {
+            if (!fragment.isEmpty()) {
+                fragments.add(fragment.toLowerCase(Locale.ROOT));
+            }
+        }
+        return fragments;
+    }
+
+    public static String executableName(String executablePath) {
+        int slash = Math.max(executablePath.lastIndexOf('/'), executablePath.lastIndexOf('\\'));
+        return executablePath.substring(slash + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return regex.toString();
+    }
+
+    public LimitTargetType getType() {
+        return type;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LimitTarget that = (LimitTarget) o;
+        return type == that.type && pattern.equals(that.pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, pattern);
+    }
+
+    @Override
+    public String toString() {
+        return type.getDisplayName() + ": " + pattern;
+    }
+}
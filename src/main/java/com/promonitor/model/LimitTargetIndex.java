@@ -0,0 +1,91 @@
+package com.promonitor.model;
+
+import com.promonitor.model.enums.LimitTargetType;
+import com.promonitor.util.AhoCorasick;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Chỉ mục biên dịch sẵn của các {@link LimitTarget}, trả về mọi mẫu khớp với một cửa sổ trong
+ * một lần duyệt. Tầng băm tra trực tiếp tên tệp thực thi và tiêu đề nguyên văn; tầng Aho-Corasick
+ * tìm các mẫu tiêu đề có đoạn nguyên văn xuất hiện trong tiêu đề, rồi mới chạy biểu thức đã biên
+ * dịch để xác nhận. Biểu thức chính quy và mẫu không có đoạn nguyên văn nào luôn được kiểm tra.
+ * Không đổi sau khi tạo; dựng lại khi tập mẫu thay đổi.
+ */
+public class LimitTargetIndex {
+    private final Map<String, List<LimitTarget>> byExecutable = new HashMap<>();
+    private final Map<String, List<LimitTarget>> byTitle = new HashMap<>();
+    private final AhoCorasick<LimitTarget> titleFragments = new AhoCorasick<>();
+    private final List<LimitTarget> alwaysChecked = new ArrayList<>();
+    private final int size;
+
+    public LimitTargetIndex(Collection<LimitTarget> targets) {
+        for (LimitTarget target : targets) {
+            if (target.getType() == LimitTargetType.EXECUTABLE) {
+                byExecutable.computeIfAbsent(target.getPattern(), k -> new ArrayList<>()).add(target);
+            } else if (target.isLiteralTitle()) {
+                byTitle.computeIfAbsent(target.getPattern().toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                        .add(target);
+            } else {
+                // Đoạn dài nhất lọc được nhiều nhất
+                String longest = null;
+                for (String fragment : target.literalFragments()) {
+                    if (longest == null || fragment.length() > longest.length()) {
+                        longest = fragment;
+                    }
+                }
+                if (longest != null) {
+                    titleFragments.add(longest, target);
+                } else {
+                    alwaysChecked.add(target);
+                }
+            }
+        }
+        titleFragments.build();
+        size = targets.size();
+    }
+
+    public List<LimitTarget> match(String title, String executablePath) {
+        List<LimitTarget> matches = new ArrayList<>();
+        if (size == 0) {
+            return matches;
+        }
+
+        if (executablePath != null && !executablePath.isEmpty()) {
+            addAll(matches, byExecutable.get(LimitTarget.executableName(executablePath)));
+        }
+        if (title == null) {
+            return matches;
+        }
+
+        addAll(matches, byTitle.get(title.toLowerCase(Locale.ROOT)));
+        if (!titleFragments.isEmpty()) {
+            titleFragments.forEachMatch(title, candidate -> {
+                if (!matches.contains(candidate) && candidate.matchesTitle(title)) {
+                    matches.add(candidate);
+                }
+            });
+        }
+        for (LimitTarget target : alwaysChecked) {
+            if (target.matchesTitle(title)) {
+                matches.add(target);
+            }
+        }
+        return matches;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static void addAll(List<LimitTarget> matches, List<LimitTarget> targets) {
+        if (targets != null) {
+            matches.addAll(targets);
+        }
+    }
+}
@@ -1,75 +1,185 @@
 package com.promonitor.model;
 
 import com.promonitor.controller.LimitManager;
+import com.promonitor.controller.LimitSnapshot;
 import com.promonitor.controller.UserSettings;
+import com.promonitor.model.enums.LimitState;
 import com.promonitor.model.enums.LimitType;
 import com.promonitor.model.enums.MonitorMode;
+import com.promonitor.model.interfaces.IClock;
+import com.promonitor.model.interfaces.IForegroundSource;
 import com.promonitor.model.interfaces.IReportable;
-import com.sun.jna.Native;
-import com.sun.jna.platform.win32.User32;
-import com.sun.jna.platform.win32.WinDef.HWND;
+import com.promonitor.model.interfaces.IUsageListener;
+import com.promonitor.model.platform.FocusChangedEvent;
+import com.promonitor.model.platform.ForegroundSources;
+import com.promonitor.model.platform.ForegroundSample;
+import com.promonitor.model.platform.ProcessDelta;
+import com.promonitor.model.platform.ProcessInfo;
+import com.promonitor.util.HierarchicalTimingWheel;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
-import com.sun.jna.ptr.IntByReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class Monitor implements IReportable {
     private static final Logger logger = LoggerFactory.getLogger(Monitor.class);
 
-    private final Map<String, TimeTracker> timeTrackers; // ID -> TimeTracker
-    private final Map<ApplicationGroup, Duration> groupUsageMap; // Group -> Total duration
+    private final AppIdentityTable identities; // (tiêu đề, tệp thực thi, PID) -> id
+    private final TrackerRegistry timeTrackers; // id -> TimeTracker, có giới hạn kích thước
+    private final TargetUsageCounters targetUsage; // Nhóm/mẫu -> thời gian sử dụng, cộng dồn theo khoảng hoạt động
 
     private final LimitManager limitManager;
     private final Notifier notifier;
     private final UserSettings userSettings;
+    private final IForegroundSource foregroundSource;
+    private final IClock clock;
+    private final LimitRollover rollover;
 
-    private boolean monitoring;
-    private ScheduledExecutorService monitorExecutor;
+    private volatile boolean monitoring;
+    private final AdaptiveTickScheduler tickScheduler;
+    private final boolean focusSignalSupported;
+    private int stableTicks;
 
     private LocalDateTime monitoringStartTime;
-    private LocalDateTime lastUpdateTime;
+    private long monitoringStartNanos;
+    private volatile long lastUpdateMillis;
 
-    private String activeWindowId;
+    // Các bộ đệm mẫu dùng lại ở mọi nhịp, chỉ luồng lấy mẫu được truy cập
+    private final ForegroundSample currentSample = new ForegroundSample();
+    private final ForegroundSample previousSample = new ForegroundSample();
+    private final ForegroundSample eventSample = new ForegroundSample();
+    private boolean hasPreviousSample;
+    private long lastFocusChangeNanos = Long.MIN_VALUE;
+
+    // Sự kiện đổi cửa sổ do nguồn đẩy tới từ luồng khác, được xử lý ở đầu nhịp lấy mẫu kế tiếp
+    private final Queue<FocusChangedEvent> pendingFocusEvents = new ConcurrentLinkedQueue<>();
+
+    private int activeAppId = -1;
     private Application activeApplication;
+    private TimeTracker activeTracker;
+    private long activeSinceNanos;
 
-    private static final int UPDATE_INTERVAL_MS = 1000;
-    private static final User32 user32 = User32.INSTANCE;
+    // Khoảng sử dụng đang mở, công bố cho luồng khác (ví dụ khi tạo báo cáo) đọc
+    private static final class OpenInterval {
+        final Application application;
+        final long startNanos;
 
-    private final Set<String> blockedApplications = new HashSet<>();
+        OpenInterval(Application application, long startNanos) {
+            this.application = application;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private volatile OpenInterval openInterval;
+
+    private final List<IUsageListener> usageListeners = new CopyOnWriteArrayList<>();
+
+    // Các mốc cảnh báo, vượt giới hạn và đặt lại của những giới hạn áp dụng cho ứng dụng đang hoạt động.
+    // Chỉ được đặt lại khi đổi cửa sổ hoặc khi giới hạn thay đổi, không tính lại ở mỗi nhịp.
+    private static final long LIMIT_WHEEL_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private final HierarchicalTimingWheel limitWheel;
+    private final List<HierarchicalTimingWheel.Timeout> armedDeadlines = new ArrayList<>();
+    private volatile boolean limitScheduleDirty = true;
+    private volatile boolean targetIndexDirty = true;
+    private long seenLimitVersion = -1;
+    // Trạng thái trong kỳ của từng giới hạn, theo đúng đối tượng trong bảng giới hạn; chỉ luồng lấy mẫu truy cập
+    private final Map<Limit, LimitPeriod> limitPeriods = new IdentityHashMap<>();
+
+    // Nhịp lấy mẫu thích ứng: nhanh sau khi đổi cửa sổ, chậm khi ổn định, thức dậy đúng mốc giới hạn
+    private static final long FAST_INTERVAL_MS = 1000;
+    private static final long SLOW_INTERVAL_MS = 5000;
+    private static final long MIN_INTERVAL_MS = 50;
+    private static final int STABLE_TICKS_BEFORE_SLOWDOWN = 5;
+
+    // Tiêu đề ứng dụng bị chặn -> các tên tiến trình suy ra từ nó; được ghi từ luồng lấy mẫu và đọc từ luồng chặn
+    private final Map<String, Set<String>> blockedApplications = new ConcurrentHashMap<>();
+    private final TitleExecutableRules titleRules = TitleExecutableRules.defaults();
+    private volatile BlockedProcessMatcher blockedMatcher = BlockedProcessMatcher.EMPTY;
     private ScheduledExecutorService blockingMonitor;
+    // Luồng chặn chỉ xét tiến trình mới từ phần chênh lệch của danh mục; quét lại toàn bộ khi danh sách chặn đổi
+    private final ProcessCatalog processCatalog = ProcessCatalog.getDefault();
+    private final EnforcementExecutor enforcer = new EnforcementExecutor(processCatalog, false);
+    private final Consumer<ProcessDelta> blockedProcessWatcher = delta -> enforceBlocked(delta.getStarted());
+    private volatile boolean blockedSetChanged;
+    private final Consumer<ProcessDelta> executablePathListener;
 
     public Monitor(LimitManager limitManager, Notifier notifier, UserSettings userSettings) {
-        this.timeTrackers = new ConcurrentHashMap<>();
-        this.groupUsageMap = new ConcurrentHashMap<>();
+        this(limitManager, notifier, userSettings, ForegroundSources.forCurrentPlatform());
+    }
+
+    public Monitor(LimitManager limitManager, Notifier notifier, UserSettings userSettings,
+                   IForegroundSource foregroundSource) {
+        this(limitManager, notifier, userSettings, foregroundSource, IClock.SYSTEM);
+    }
+
+    public Monitor(LimitManager limitManager, Notifier notifier, UserSettings userSettings,
+                   IForegroundSource foregroundSource, IClock clock) {
+        this.identities = new AppIdentityTable();
+        this.targetUsage = new TargetUsageCounters();
+        this.timeTrackers = new TrackerRegistry(userSettings.getMaxTrackedWindows(), clock, (tracker, appId) -> {
+            targetUsage.retire(appId, tracker);
+            targetUsage.release(appId);
+            identities.release(appId);
+        });
         this.limitManager = limitManager;
         this.notifier = notifier;
         this.userSettings = userSettings;
+        this.foregroundSource = foregroundSource;
+        this.clock = clock;
+        this.enforcer.setKillDescendants(userSettings.isKillProcessTree());
+        this.timeTrackers.setPinned(this::isReferencedByLimit);
+        this.rollover = new LimitRollover(clock);
         this.monitoring = false;
+        this.tickScheduler = new AdaptiveTickScheduler(this::tick, this::computeNextDelayMillis);
+        this.focusSignalSupported = foregroundSource.setFocusEventListener(this::onFocusChanged);
+        this.executablePathListener = foregroundSource.getProcessDeltaListener();
+        if (executablePathListener != null) {
+            processCatalog.subscribe(executablePathListener);
+        }
+        this.limitWheel = new HierarchicalTimingWheel(LIMIT_WHEEL_TICK_NANOS, clock.nanoTime());
+        // Thay đổi được phát hiện qua phiên bản bảng giới hạn, ở đây chỉ cần đánh thức luồng lấy mẫu
+        limitManager.addChangeListener(tickScheduler::wakeUp);
     }
 
     public void startMonitoring() {
+        startMonitoring(true);
+    }
+
+    /**
+     * @param scheduled false nếu bên gọi tự điều khiển nhịp lấy mẫu qua {@link #tick()}
+     */
+    public void startMonitoring(boolean scheduled) {
         if (monitoring) {
             logger.info("Hệ thống theo dõi đã đang chạy");
             return;
         }
 
         monitoring = true;
-        if(monitoringStartTime == null) monitoringStartTime = LocalDateTime.now();
-        lastUpdateTime = monitoringStartTime;
+        if(monitoringStartTime == null) {
+            monitoringStartTime = LocalDateTime.now();
+            monitoringStartNanos = clock.nanoTime();
+        }
+        lastUpdateMillis = monitoringStartTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
 
-        logger.info("Bắt đầu theo dõi ứng dụng vào lúc: {}", monitoringStartTime);
+        logger.info("Bắt đầu theo dõi ứng dụng vào lúc: {} (nguồn: {})",
+                monitoringStartTime, foregroundSource.getName());
 
-        monitorExecutor = Executors.newSingleThreadScheduledExecutor();
-        monitorExecutor.scheduleAtFixedRate(
-                this::updateActiveWindow, 0, UPDATE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (scheduled) {
+            tickScheduler.start();
+        }
     }
 
     public void stopMonitoring() {
@@ -80,128 +190,466 @@ public class Monitor implements IReportable {
         monitoring = false;
         logger.info("Dừng theo dõi ứng dụng");
 
-        if (monitorExecutor != null) {
-            monitorExecutor.shutdown();
-            try {
-                if (!monitorExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
-                    monitorExecutor.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                monitorExecutor.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-            monitorExecutor = null;
-        }
+        tickScheduler.stop();
+        pendingFocusEvents.clear();
+        cancelLimitDeadlines();
+        limitScheduleDirty = true;
 
-        for (TimeTracker tracker : timeTrackers.values()) {
+        long now = clock.nanoTime();
+        for (TimeTracker tracker : getAllTimeTrackers()) {
             if (tracker.isRunning()) {
-                tracker.stopTracking();
+                tracker.stopTracking(now);
             }
         }
+        targetUsage.stop(now);
+        if (activeTracker != null) {
+            publishInterval(activeApplication, activeSinceNanos, now);
+        }
+        openInterval = null;
+
+        // Buộc lần lấy mẫu đầu tiên sau khi chạy lại phải khởi động lại bộ đếm
+        hasPreviousSample = false;
+        activeAppId = -1;
+        activeTracker = null;
+    }
+
+    /**
+     * Một lần lấy mẫu cửa sổ tiền cảnh và kiểm tra giới hạn.
+     */
+    public void tick() {
+        updateActiveWindow();
+    }
+
+    /**
+     * Nhận sự kiện đổi cửa sổ từ nguồn đẩy; có thể được gọi từ bất kỳ luồng nào.
+     */
+    public void onFocusChanged(FocusChangedEvent event) {
+        if (!monitoring) {
+            return;
+        }
+        pendingFocusEvents.offer(event);
+        tickScheduler.wakeUp();
     }
 
     private void updateActiveWindow() {
         try {
-            HWND activeWindow = user32.GetForegroundWindow();
-            if (activeWindow == null) {
-                return;
+            boolean changed = drainFocusEvents();
+
+            // Lấy mẫu chỉ còn là dự phòng khi nguồn có sự kiện, ví dụ để bắt việc đổi tiêu đề cửa sổ
+            boolean sampled = foregroundSource.poll(currentSample);
+            // Trường hợp thường gặp nhất: cửa sổ không đổi, không cấp phát gì thêm
+            if (sampled && (!hasPreviousSample || !currentSample.sameWindowAs(previousSample))) {
+                applyForeground(currentSample, clock.nanoTime());
+                changed = true;
             }
 
-            IntByReference processIdRef = new IntByReference();
-            user32.GetWindowThreadProcessId(activeWindow, processIdRef);
-            int processId = processIdRef.getValue();
+            if (sampled || changed) {
+                stableTicks = changed ? 0 : stableTicks + 1;
+                lastUpdateMillis = clock.currentTimeMillis();
+            }
 
-            char[] windowText = new char[512];
-            user32.GetWindowText(activeWindow, windowText, 512);
-            String windowTitle = Native.toString(windowText).trim();
-            String executablePath = "";
+            processLimitDeadlines();
 
-            Application currentApp = new Application(
-                    windowTitle.isEmpty() ? "Unknown" : windowTitle,
-                    processId,
-                    executablePath
-            );
+        } catch (Exception e) {
+            logger.error("Lỗi khi cập nhật cửa sổ đang hoạt động", e);
+        }
+    }
 
-            String currentAppId = currentApp.getUniqueId();
-            if (!currentAppId.equals(activeWindowId)) {
+    private boolean drainFocusEvents() {
+        boolean changed = false;
+        FocusChangedEvent event;
+        while ((event = pendingFocusEvents.poll()) != null) {
+            event.copyTo(eventSample);
+            applyForeground(eventSample, event.getTimestampNanos());
+            changed = true;
+        }
+        return changed;
+    }
 
-                if (activeWindowId != null && timeTrackers.containsKey(activeWindowId)) {
-                    TimeTracker previousTracker = timeTrackers.get(activeWindowId);
-                    previousTracker.stopTracking();
-                }
+    private void applyForeground(ForegroundSample sample, long atNanos) {
+        previousSample.copyFrom(sample);
+        hasPreviousSample = true;
 
-                activeWindowId = currentAppId;
-                activeApplication = currentApp;
-                if (!timeTrackers.containsKey(currentAppId)) {
-                    TimeTracker newTracker = new TimeTracker(currentApp);
-                    timeTrackers.put(currentAppId, newTracker);
-                    newTracker.startTracking();
-                    logger.debug("Bắt đầu theo dõi ứng dụng mới: {}", currentApp.getName());
-                }
-                else {
-                    TimeTracker lastTracker = timeTrackers.get(activeWindowId);
-                    lastTracker.startTracking();
-                }
+        // Ranh giới khoảng thời gian lấy đúng mốc của sự kiện, nhưng không được lùi về trước lần đổi trước đó
+        long at = Math.max(atNanos, lastFocusChangeNanos);
+        lastFocusChangeNanos = at;
+
+        int appId = identities.intern(sample);
+        if (appId == activeAppId) {
+            return;
+        }
+
+        if (activeTracker != null) {
+            activeTracker.stopTracking(at);
+            publishInterval(activeApplication, activeSinceNanos, at);
+        }
+
+        TimeTracker tracker = timeTrackers.get(appId);
+        if (tracker == null) {
+            Application currentApp = new Application(identities.getTitle(appId),
+                    identities.getProcessId(appId), identities.getExecutablePath(appId));
+            tracker = new TimeTracker(currentApp, clock);
+            tracker.startTracking(at);
+
+            // Áp dụng giới hạn ở đây để việc loại bộ đếm (và giải phóng id) luôn chạy trên luồng lấy mẫu
+            timeTrackers.setCapacity(userSettings.getMaxTrackedWindows());
+            timeTrackers.put(appId, tracker);
+            logger.debug("Bắt đầu theo dõi ứng dụng mới: {}", currentApp.getName());
+        } else {
+            tracker.startTracking(at);
+            timeTrackers.touch(appId);
+        }
+
+        activeAppId = appId;
+        activeApplication = tracker.getApplication();
+        activeTracker = tracker;
+        activeSinceNanos = at;
+        openInterval = new OpenInterval(activeApplication, at);
+        targetUsage.switchTo(appId, activeApplication, at);
+        limitScheduleDirty = true;
+    }
+
+    /**
+     * Đăng ký nhận các khoảng sử dụng đã khép lại, ví dụ để ghi vào nhật ký sử dụng.
+     */
+    public void addUsageListener(IUsageListener listener) {
+        usageListeners.add(listener);
+    }
+
+    public void removeUsageListener(IUsageListener listener) {
+        usageListeners.remove(listener);
+    }
+
+    /**
+     * Chuyển khoảng sử dụng đang mở (tính tới hiện tại) cho {@code visitor} mà không khép nó lại.
+     * Dùng để bổ sung phần chưa được ghi vào nhật ký khi đọc lịch sử; an toàn khi gọi từ luồng khác.
+     */
+    public void visitOpenInterval(IUsageListener visitor) {
+        OpenInterval open = openInterval;
+        if (open == null) {
+            return;
+        }
+        long now = clock.nanoTime();
+        long offset = epochOffsetNanos();
+        if (now > open.startNanos) {
+            visitor.onIntervalClosed(open.application, open.startNanos + offset, now + offset);
+        }
+    }
+
+    private void publishInterval(Application application, long startNanos, long endNanos) {
+        if (usageListeners.isEmpty() || endNanos <= startNanos) {
+            return;
+        }
+
+        long offset = epochOffsetNanos();
+        long startEpochNanos = startNanos + offset;
+        long endEpochNanos = endNanos + offset;
+        for (IUsageListener listener : usageListeners) {
+            try {
+                listener.onIntervalClosed(application, startEpochNanos, endEpochNanos);
+            } catch (RuntimeException e) {
+                logger.error("Lỗi khi ghi nhận khoảng sử dụng", e);
             }
+        }
+    }
 
-            lastUpdateTime = LocalDateTime.now();
-            checkLimits();
+    /**
+     * Độ lệch hiện tại giữa đồng hồ hệ thống (epoch, ns) và đồng hồ đơn điệu.
+     */
+    private long epochOffsetNanos() {
+        return clock.currentTimeMillis() * 1_000_000L - clock.nanoTime();
+    }
 
-        } catch (Exception e) {
-            logger.error("Lỗi khi cập nhật cửa sổ đang hoạt động", e);
+    private long computeNextDelayMillis() {
+        if (limitScheduleDirty) {
+            return MIN_INTERVAL_MS;
+        }
+
+        // Không có tín hiệu đổi cửa sổ thì chỉ giãn nhịp khi cửa sổ đã ổn định một lúc
+        long delay = focusSignalSupported || stableTicks >= STABLE_TICKS_BEFORE_SLOWDOWN
+                ? SLOW_INTERVAL_MS : FAST_INTERVAL_MS;
+
+        long untilDeadline = limitWheel.nanosUntilNextDeadline(clock.nanoTime());
+        if (untilDeadline >= 0) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(untilDeadline) + 1;
+            delay = Math.min(delay, Math.max(MIN_INTERVAL_MS, millis));
         }
+        return delay;
+    }
+
+    /**
+     * Yêu cầu tính lại các mốc giới hạn ở nhịp kế tiếp, ví dụ khi nhóm hoặc cài đặt cảnh báo thay đổi.
+     * Có thể được gọi từ bất kỳ luồng nào.
+     */
+    public void invalidateLimitSchedule() {
+        targetIndexDirty = true;
+        limitScheduleDirty = true;
+        tickScheduler.wakeUp();
     }
-    private void checkLimits() {
-        if (activeApplication == null || !monitoring) {
+
+    private void processLimitDeadlines() {
+        if (!monitoring) {
             return;
         }
 
         try {
-            updateGroupUsage();
+            long now = clock.nanoTime();
+            LimitSnapshot limits = limitManager.getSnapshot();
+            if (limits.getVersion() != seenLimitVersion) {
+                seenLimitVersion = limits.getVersion();
+                // Giới hạn bị xóa hoặc sửa (đối tượng mới) không còn cần trạng thái kỳ cũ
+                Set<Limit> live = Collections.newSetFromMap(new IdentityHashMap<>());
+                live.addAll(limits.getLimits().values());
+                limitPeriods.keySet().retainAll(live);
+                targetIndexDirty = true;
+                limitScheduleDirty = true;
+            }
+            if (targetIndexDirty) {
+                targetIndexDirty = false;
+                rebuildTargetUsage(limits, now);
+            }
+            if (limitScheduleDirty) {
+                limitScheduleDirty = false;
+                armLimitDeadlines(limits, now);
+            }
+            limitWheel.advanceTo(now);
+        } catch (Exception e) {
+            logger.error("Lỗi khi kiểm tra giới hạn thời gian", e);
+        }
+    }
 
-            String activeAppId = activeApplication.getUniqueId();
-            TimeTracker tracker = timeTrackers.get(activeAppId);
+    private void armLimitDeadlines(LimitSnapshot limits, long now) {
+        cancelLimitDeadlines();
 
-            if (tracker == null) {
-                return;
+        TimeTracker tracker = activeTracker;
+        if (tracker == null) {
+            return;
+        }
+
+        // Đã qua nửa đêm trong lúc không theo dõi thì chuyển kỳ trước khi tính mốc
+        if (rollover.refresh()) {
+            rollOverLimits(limits, now);
+        }
+        // Giới hạn ngày và tuần đều sang kỳ mới vào nửa đêm
+        armDeadline(now + rollover.nanosUntilNextRollover(), this::onRollover);
+
+        long warningNanos = TimeUnit.MINUTES.toNanos(userSettings.getWarningThresholdMinutes());
+
+        // Chỉ xét giới hạn của chính ứng dụng và của các nhóm, mẫu chứa nó, tra qua chỉ mục ngược
+        Limit appLimit = limits.get(activeApplication);
+        if (appLimit != null) {
+            armLimit(appLimit, null, tracker.getTotalNanos(now), now, warningNanos);
+        }
+        for (Object target : targetUsage.getActiveTargets()) {
+            Limit targetLimit = limits.get(target);
+            if (targetLimit != null) {
+                armLimit(targetLimit, target, targetUsage.getUsageNanos(target, now), now, warningNanos);
             }
+        }
+    }
 
-            Duration usageTime = tracker.getTotalTime();
+    /**
+     * @param target nhóm hoặc mẫu chứa ứng dụng đang hoạt động, null nếu là giới hạn của chính ứng dụng
+     */
+    private void armLimit(Limit limit, Object target, long totalUsageNanos, long now, long warningNanos) {
+        LimitPeriod period = periodOf(limit);
+        long epoch = rollover.currentEpoch(limit.getType());
+        if (period.needsReset(limit.getType(), epoch)) {
+            // Giới hạn mới hoặc vừa sửa chỉ tính thời gian đã dùng từ đầu kỳ hiện tại
+            period.reset(epoch, usageBeforeEpoch(limit.getType(), target, activeTracker, now));
+        }
 
-            boolean appLimitExceeded = limitManager.isLimitExceeded(activeApplication, usageTime);
+        if (limit.getType() == LimitType.SCHEDULE) {
+            Schedule schedule = limit.getSchedule();
+            int minute = Schedule.minuteOfWeek(LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(clock.currentTimeMillis()), ZoneId.systemDefault()));
+            if (!schedule.isWithinSchedule(minute)) {
+                armDeadline(now, () -> onLimitExceeded(limit, target));
+            }
+            // Ngủ thẳng tới ranh giới được phép/bị chặn kế tiếp rồi tính lại
+            int minutes = schedule.minutesUntilNextTransition(minute);
+            if (minutes > 0) {
+                armDeadline(now + nanosUntilNextMinute() + TimeUnit.MINUTES.toNanos(minutes - 1),
+                        () -> limitScheduleDirty = true);
+            }
+            return;
+        }
 
-            boolean groupLimitExceeded = limitManager.isGroupLimitExceeded(activeApplication, groupUsageMap);
+        long remaining = limit.getValue().toNanos() - period.getUsageNanos(totalUsageNanos);
+        if (remaining <= 0) {
+            armDeadline(now, () -> onLimitExceeded(limit, target));
+            return;
+        }
+        // Cảnh báo trước chỉ dành cho giới hạn của ứng dụng và mẫu, như trước đây
+        if (!(target instanceof ApplicationGroup)) {
+            armDeadline(now + Math.max(0, remaining - warningNanos), () -> onLimitWarning(limit, target));
+        }
+        armDeadline(now + remaining, () -> onLimitExceeded(limit, target));
+    }
 
-            if (appLimitExceeded || groupLimitExceeded) {
-                handleLimitExceeded(tracker, appLimitExceeded);
-            } else {
-                checkWarningThreshold(tracker);
+    private void onRollover() {
+        if (rollover.refresh()) {
+            rollOverLimits(limitManager.getSnapshot(), clock.nanoTime());
+        }
+        limitScheduleDirty = true;
+    }
+
+    /**
+     * Chuyển mọi giới hạn ngày/tuần đã hết kỳ sang kỳ mới, lấy tổng thời gian hiện tại làm mốc 0.
+     */
+    private void rollOverLimits(LimitSnapshot limits, long now) {
+        for (Map.Entry<Object, Limit> entry : limits.getLimits().entrySet()) {
+            Limit limit = entry.getValue();
+            LimitPeriod period = periodOf(limit);
+            long epoch = rollover.currentEpoch(limit.getType());
+            if (!period.needsReset(limit.getType(), epoch)) {
+                continue;
             }
 
-        } catch (Exception e) {
-            logger.error("Lỗi khi kiểm tra giới hạn thời gian", e);
+            long baseline;
+            if (entry.getKey() instanceof Application app) {
+                int appId = identities.find(app);
+                baseline = usageBeforeEpoch(limit.getType(), null, appId >= 0 ? timeTrackers.get(appId) : null, now);
+            } else {
+                baseline = usageBeforeEpoch(limit.getType(), entry.getKey(), null, now);
+            }
+            period.reset(epoch, baseline);
+            limit.reset();
+            logger.debug("Đã reset giới hạn: {}", limit);
         }
     }
 
-    private void updateGroupUsage() {
-        groupUsageMap.clear();
+    /**
+     * Tổng thời gian sử dụng của đối tượng trước đầu kỳ hiện tại, dùng làm mốc 0 của giới hạn,
+     * tính từ phần chia theo ngày của các bộ đếm.
+     *
+     * @param target nhóm hoặc mẫu; null nếu là giới hạn của chính ứng dụng có bộ đếm {@code tracker}
+     */
+    private long usageBeforeEpoch(LimitType type, Object target, TimeTracker tracker, long now) {
+        LocalDate epochStart = rollover.currentEpochStart(type);
+        if (target == null) {
+            return tracker != null ? tracker.getNanosBefore(epochStart, now) : 0;
+        }
 
-        for (TimeTracker tracker : timeTrackers.values()) {
-            Application app = tracker.getApplication();
-            Duration appUsage = tracker.getTotalTime();
-
-            for (Map.Entry<Object, Limit> entry : limitManager.getAllLimits().entrySet()) {
-                if (entry.getKey() instanceof ApplicationGroup group) {
-                    if (group.containsApplication(app)) {
-                        Duration currentGroupUsage = groupUsageMap.getOrDefault(group, Duration.ZERO);
-                        groupUsageMap.put(group, currentGroupUsage.plus(appUsage));
-                    }
+        long before = targetUsage.getRetiredNanosBefore(target, epochStart);
+        for (TimeTracker live : timeTrackers.getLiveTrackers()) {
+            for (Object matched : targetUsage.resolve(live.getApplication())) {
+                if (matched.equals(target)) {
+                    before += live.getNanosBefore(epochStart, now);
+                    break;
                 }
             }
         }
+        return before;
+    }
+
+    private void armDeadline(long deadlineNanos, Runnable task) {
+        armedDeadlines.add(limitWheel.schedule(deadlineNanos, task));
+    }
+
+    private void cancelLimitDeadlines() {
+        for (HierarchicalTimingWheel.Timeout timeout : armedDeadlines) {
+            timeout.cancel();
+        }
+        armedDeadlines.clear();
+    }
+
+    private long nanosUntilNextMinute() {
+        long millis = clock.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(60_000 - Math.floorMod(millis, 60_000L));
+    }
+
+    private void onLimitExceeded(Limit limit, Object target) {
+        TimeTracker tracker = activeTracker;
+        if (tracker == null) {
+            return;
+        }
+
+        long now = clock.nanoTime();
+        boolean strict = userSettings.getMonitorMode() == MonitorMode.STRICT;
+        // Mẫu tệp thực thi/tiêu đề được báo như giới hạn của chính ứng dụng
+        boolean isAppLimit = !(target instanceof ApplicationGroup);
+
+        // Chế độ nghiêm ngặt chuyển thẳng sang BLOCKED để chỉ phát một thông báo
+        LimitPeriod period = periodOf(limit);
+        if (period.advanceTo(strict ? LimitState.BLOCKED : LimitState.EXCEEDED, now)) {
+            handleLimitExceeded(tracker, isAppLimit, true);
+        } else {
+            boolean renotify = period.isRenotifyDue(now, renotifyIntervalNanos());
+            if (renotify) {
+                period.markNotified(now);
+            }
+            // Ở chế độ nghiêm ngặt vẫn phải chặn lại ứng dụng mỗi khi nó quay lại tiền cảnh
+            if (renotify || strict) {
+                handleLimitExceeded(tracker, isAppLimit, renotify);
+            }
+        }
+        armReminder(limit, () -> onLimitExceeded(limit, target));
     }
 
-    private void handleLimitExceeded(TimeTracker tracker, boolean isAppLimit) {
+    private LimitPeriod periodOf(Limit limit) {
+        return limitPeriods.computeIfAbsent(limit, l -> new LimitPeriod());
+    }
+
+    private void armReminder(Limit limit, Runnable task) {
+        long interval = renotifyIntervalNanos();
+        if (interval > 0) {
+            armDeadline(periodOf(limit).getLastNotifiedNanos() + interval, task);
+        }
+    }
+
+    private long renotifyIntervalNanos() {
+        return TimeUnit.MINUTES.toNanos(Math.max(0, userSettings.getRenotifyIntervalMinutes()));
+    }
+
+    private void rebuildTargetUsage(LimitSnapshot limits, long now) {
+        List<ApplicationGroup> groups = new ArrayList<>();
+        List<LimitTarget> patterns = new ArrayList<>();
+        for (Object target : limits.getLimits().keySet()) {
+            if (target instanceof ApplicationGroup group) {
+                groups.add(group);
+            } else if (target instanceof LimitTarget pattern) {
+                patterns.add(pattern);
+            }
+        }
+
+        LimitTargetIndex patternIndex = new LimitTargetIndex(patterns);
+        List<Object> targets = new ArrayList<>(groups);
+        targets.addAll(patterns);
+        // Bộ đếm gộp theo tệp thực thi không được tính ở đây: thời gian của chúng đã nằm trong phần giữ lại
+        targetUsage.rebuild(targets, app -> resolveTargets(app, groups, patternIndex),
+                timeTrackers.getLiveTrackers(), activeApplication, now);
+    }
+
+    /**
+     * Bộ đếm của ứng dụng có giới hạn riêng hoặc thuộc một nhóm có giới hạn không được loại:
+     * cửa sổ quay lại sẽ nhận bộ đếm mới từ 0 và mất thời gian đã dùng so với mốc của giới hạn.
+     */
+    private boolean isReferencedByLimit(Application app) {
+        LimitSnapshot limits = limitManager.getSnapshot();
+        if (limits.containsTarget(app)) {
+            return true;
+        }
+        for (Object target : limits.getLimits().keySet()) {
+            if (target instanceof ApplicationGroup group && group.containsApplication(app)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object[] resolveTargets(Application app, List<ApplicationGroup> groups,
+                                           LimitTargetIndex patternIndex) {
+        List<Object> matched = new ArrayList<>(patternIndex.match(app.getName(), app.getExecutablePath()));
+        for (ApplicationGroup group : groups) {
+            if (group.containsApplication(app)) {
+                matched.add(group);
+            }
+        }
+        return matched.toArray();
+    }
+
+    private void handleLimitExceeded(TimeTracker tracker, boolean isAppLimit, boolean notify) {
         Application app = tracker.getApplication();
         String appName = app.getName();
 
@@ -215,12 +663,14 @@ public class Monitor implements IReportable {
         if (userSettings.getMonitorMode() == MonitorMode.STRICT) {
             // Chế độ nghiêm ngặt: Hiển thị thông báo và chặn ứng dụng
             message += " Ứng dụng sẽ bị tạm dừng theo chế độ nghiêm ngặt.";
-            notifier.notify(message, "Đã vượt quá giới hạn thời gian", userSettings.getNotificationType());
+            if (notify) {
+                notifier.notify(message, "Đã vượt quá giới hạn thời gian", userSettings.getNotificationType());
+            }
 
             // TODO: Thực hiện chặn ứng dụng (có thể cần một phương pháp platform-specific)
             blockApplication(app);
             logger.info("Ứng dụng {} bị chặn do vượt quá giới hạn (chế độ nghiêm ngặt)", appName);
-        } else {
+        } else if (notify) {
             notifier.notify(message, "Đã vượt quá giới hạn thời gian", userSettings.getNotificationType());
             logger.info("Ứng dụng {} đã vượt quá giới hạn (chế độ bình thường)", appName);
         }
@@ -228,95 +678,168 @@ public class Monitor implements IReportable {
 
     public void blockApplication(Application app) {
         String fullName = app.getName();
-        blockedApplications.add(fullName);
-        if (fullName.contains(" - ")) {
-            String[] parts = fullName.split(" - ");
-            for (String part : parts) {
-                String trimmedPart = part.trim();
-                if (!trimmedPart.isEmpty()) {
-                    if(trimmedPart.contains("Google"))
-                        trimmedPart = "chrome.exe";
-                    blockedApplications.add(trimmedPart);
-                }
-            }
+        Set<String> names = new LinkedHashSet<>();
+        names.add(fullName);
+        String executable = app.getExecutablePath();
+        boolean isProtected = BlockedProcessMatcher.isProtected(app.getProcessId(), executable);
+        if (isProtected) {
+            // Không bao giờ kết thúc chính ứng dụng hay vỏ hệ thống (explorer, terminal...)
+            logger.warn("Bỏ qua việc chặn tiến trình được bảo vệ: {} ({})", fullName, executable);
+        } else if (executable != null && !executable.isEmpty()) {
+            names.add(LimitTarget.executableName(executable));
         }
-        app.terminate();
+        names.addAll(titleRules.resolve(fullName));
+        blockedApplications.put(fullName, names);
+        rebuildBlockedMatcher();
+
+        if (!isProtected) {
+            enforcer.terminate(app.getProcessId());
+        }
+        blockedSetChanged = true;
         startBlockingMonitor();
     }
 
-    private void startBlockingMonitor() {
+    private synchronized void rebuildBlockedMatcher() {
+        Set<String> names = new LinkedHashSet<>();
+        for (Set<String> entry : blockedApplications.values()) {
+            names.addAll(entry);
+        }
+        blockedMatcher = names.isEmpty() ? BlockedProcessMatcher.EMPTY : new BlockedProcessMatcher(names);
+    }
+
+    private synchronized void startBlockingMonitor() {
         if (blockingMonitor == null || blockingMonitor.isShutdown()) {
+            processCatalog.subscribe(blockedProcessWatcher);
             blockingMonitor = Executors.newSingleThreadScheduledExecutor();
             blockingMonitor.scheduleAtFixedRate(this::checkAndBlockRestartedApps, 0, 2, TimeUnit.SECONDS);
         }
     }
 
+    private synchronized void stopBlockingMonitor() {
+        if (blockingMonitor != null) {
+            blockingMonitor.shutdown();
+            blockingMonitor = null;
+        }
+        processCatalog.unsubscribe(blockedProcessWatcher);
+    }
+
+    /**
+     * Quét lại danh mục tiến trình một lần cho cả chu kỳ. Tiến trình mới tới qua
+     * {@link #blockedProcessWatcher}; toàn bộ bảng chỉ được xét lại khi danh sách chặn vừa thay đổi.
+     */
     private void checkAndBlockRestartedApps() {
-        for (String blockedAppName : blockedApplications) {
-            List<Application> openInstances = Application.findRunningApplicationsByName(blockedAppName);
-            for (Application instance : openInstances) {
-                instance.terminate();
-                logger.info("Phát hiện và chặn ứng dụng {} đang cố mở lại", blockedAppName);
-
-                notifier.notify(
-                        "Ứng dụng " + blockedAppName + " đã bị chặn do vượt quá giới hạn thời gian",
-                        "Không thể mở lại ứng dụng",
-                        userSettings.getNotificationType()
-                );
+        if (blockedApplications.isEmpty()) {
+            return;
+        }
+
+        if (blockedSetChanged) {
+            blockedSetChanged = false;
+            enforceBlocked(processCatalog.getProcesses());
+        }
+        processCatalog.refresh();
+    }
+
+    /**
+     * So khớp mọi tên bị chặn với các tiến trình trong cùng một lượt.
+     */
+    private void enforceBlocked(List<ProcessInfo> processes) {
+        BlockedProcessMatcher matcher = blockedMatcher;
+        if (matcher.isEmpty() || processes.isEmpty()) {
+            return;
+        }
+
+        List<ProcessInfo> batch = new ArrayList<>();
+        for (ProcessInfo process : processes) {
+            if (BlockedProcessMatcher.isProtected(process.getProcessId(), process.getExecutablePath())) {
+                continue;
             }
+            String blockedAppName = matcher.match(process.getCommand());
+            if (blockedAppName == null && !process.getExecutablePath().isEmpty()) {
+                // Tên lệnh trên Linux bị cắt còn 15 ký tự
+                blockedAppName = matcher.match(LimitTarget.executableName(process.getExecutablePath()));
+            }
+            if (blockedAppName == null) {
+                continue;
+            }
+
+            batch.add(process);
+            logger.info("Phát hiện và chặn ứng dụng {} đang cố mở lại", blockedAppName);
+
+            notifier.notify(
+                    "Ứng dụng " + blockedAppName + " đã bị chặn do vượt quá giới hạn thời gian",
+                    "Không thể mở lại ứng dụng",
+                    userSettings.getNotificationType()
+            );
         }
+        // Cả chu kỳ được kết thúc thành một lô trên luồng chặn riêng
+        enforcer.terminateAll(batch);
     }
 
     public void unblockApplication(Application app) {
         blockedApplications.remove(app.getName());
+        rebuildBlockedMatcher();
         logger.info("Đã bỏ chặn ứng dụng: {}", app.getName());
 
-        if (blockedApplications.isEmpty() && blockingMonitor != null) {
-            blockingMonitor.shutdown();
+        if (blockedApplications.isEmpty()) {
+            stopBlockingMonitor();
         }
     }
 
 
-    private void checkWarningThreshold(TimeTracker tracker) {
-        Application app = tracker.getApplication();
-        Limit limit = limitManager.getLimit(app);
-
-        if (limit != null && limit.getType() != LimitType.SCHEDULE) {
-            Duration usageTime = tracker.getTotalTime();
-            Duration remaining = limit.getRemainingTime(usageTime);
-
-            int warningThresholdSeconds = userSettings.getWarningThresholdMinutes() * 60;
+    private void onLimitWarning(Limit limit, Object target) {
+        TimeTracker tracker = activeTracker;
+        LimitPeriod period = periodOf(limit);
+        // Đã vượt giới hạn thì không cảnh báo nữa
+        if (tracker == null || period.getState().ordinal() > LimitState.WARNED.ordinal()) {
+            return;
+        }
 
-            if (remaining.getSeconds() <= warningThresholdSeconds && remaining.getSeconds() > 0) {
-                String message = "Cảnh báo: Thời gian sử dụng " + app.getName() +
-                        " sẽ đạt đến giới hạn trong " +
-                        (remaining.toMinutes() > 0 ? remaining.toMinutes() + " phút" :
-                                remaining.getSeconds() + " giây");
+        Application app = tracker.getApplication();
+        long now = clock.nanoTime();
+        long usageNanos = period.getUsageNanos(target != null
+                ? targetUsage.getUsageNanos(target, now) : tracker.getTotalNanos(now));
+        Duration remaining = limit.getRemainingTime(Duration.ofNanos(usageNanos));
+        if (remaining.getSeconds() <= 0) {
+            return;
+        }
 
-                notifier.notify(message, "Cảnh báo giới hạn thời gian", userSettings.getNotificationType());
-                logger.info("Đã hiển thị cảnh báo giới hạn cho {}: còn {} giây",
-                        app.getName(), remaining.getSeconds());
+        // Chỉ thông báo khi vừa chuyển sang WARNED hoặc đã tới lúc nhắc lại
+        if (!period.advanceTo(LimitState.WARNED, now)) {
+            if (!period.isRenotifyDue(now, renotifyIntervalNanos())) {
+                armReminder(limit, () -> onLimitWarning(limit, target));
+                return;
             }
+            period.markNotified(now);
         }
+        armReminder(limit, () -> onLimitWarning(limit, target));
+
+        String message = "Cảnh báo: Thời gian sử dụng " + app.getName() +
+                " sẽ đạt đến giới hạn trong " +
+                (remaining.toMinutes() > 0 ? remaining.toMinutes() + " phút" :
+                        remaining.getSeconds() + " giây");
+
+        notifier.notify(message, "Cảnh báo giới hạn thời gian", userSettings.getNotificationType());
+        logger.info("Đã hiển thị cảnh báo giới hạn cho {}: còn {} giây",
+                app.getName(), remaining.getSeconds());
     }
 
     public List<Application> getAllTrackedApplications() {
         List<Application> apps = new ArrayList<>();
-        for (TimeTracker tracker : timeTrackers.values()) {
+        for (TimeTracker tracker : getAllTimeTrackers()) {
             apps.add(tracker.getApplication());
         }
         return apps;
     }
 
     public List<TimeTracker> getAllTimeTrackers() {
-        return new ArrayList<>(timeTrackers.values());
+        return timeTrackers.getAllTimeTrackers();
     }
 
     public Duration getTotalComputerUsageTime() {
         if (monitoringStartTime == null) {
             return Duration.ZERO;
         }
-        return Duration.between(monitoringStartTime, LocalDateTime.now());
+        return Duration.ofNanos(clock.nanoTime() - monitoringStartNanos);
     }
 
     public boolean isMonitoring() {
@@ -327,13 +850,14 @@ public class Monitor implements IReportable {
     public Map<String, Object> generateReportData() {
         Map<String, Object> reportData = new HashMap<>();
 
+        LocalDateTime lastUpdateTime = getLastUpdateTime();
         reportData.put("reportStartTime", monitoringStartTime);
         reportData.put("reportEndTime", lastUpdateTime);
         reportData.put("totalMonitoringTime",
                 Duration.between(monitoringStartTime, lastUpdateTime).toString());
 
         List<Map<String, Object>> appData = new ArrayList<>();
-        for (TimeTracker tracker : timeTrackers.values()) {
+        for (TimeTracker tracker : getAllTimeTrackers()) {
             Map<String, Object> appInfo = new HashMap<>();
             Application app = tracker.getApplication();
 
@@ -349,9 +873,11 @@ public class Monitor implements IReportable {
         reportData.put("applicationData", appData);
 
         List<Map<String, Object>> groupData = new ArrayList<>();
-        for (Map.Entry<ApplicationGroup, Duration> entry : groupUsageMap.entrySet()) {
+        for (Map.Entry<Object, Duration> entry : targetUsage.snapshot(clock.nanoTime()).entrySet()) {
+            if (!(entry.getKey() instanceof ApplicationGroup group)) {
+                continue;
+            }
             Map<String, Object> groupInfo = new HashMap<>();
-            ApplicationGroup group = entry.getKey();
             Duration duration = entry.getValue();
 
             groupInfo.put("name", group.getName());
@@ -374,10 +900,32 @@ public class Monitor implements IReportable {
 
     @Override
     public LocalDateTime getReportEndTime() {
-        return lastUpdateTime != null ? lastUpdateTime : LocalDateTime.now();
+        return lastUpdateMillis != 0 ? getLastUpdateTime() : LocalDateTime.now();
+    }
+
+    private LocalDateTime getLastUpdateTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(lastUpdateMillis), ZoneId.systemDefault());
+    }
+
+    public IForegroundSource getForegroundSource() {
+        return foregroundSource;
+    }
+
+    public EnforcementExecutor getEnforcer() {
+        return enforcer;
+    }
+
+    public AdaptiveTickScheduler getTickScheduler() {
+        return tickScheduler;
     }
 
     public void cleanup() {
         stopMonitoring();
+        stopBlockingMonitor();
+        enforcer.shutdown();
+        if (executablePathListener != null) {
+            processCatalog.unsubscribe(executablePathListener);
+        }
+        foregroundSource.close();
     }
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+package com.promonitor.model;
+
+import com.promonitor.model.enums.NotificationType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Chuyển thông báo sang một luồng riêng để luồng lấy mẫu không bao giờ chờ khay hệ thống,
+ * âm thanh hay giao diện. {@link #submit} chỉ đẩy vào hàng đợi không khóa có giới hạn;
+ * luồng phát gom các thông báo tới gần nhau, bỏ thông báo trùng trong một cửa sổ thời gian,
+ * giới hạn tần suất từng kênh và gộp nhiều thông báo thành một pop-up tổng hợp.
+ */
+public class NotificationDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    /**
+     * Các kênh phát thực tế, được gọi trên luồng phát.
+     */
+    public interface Sink {
+        void popup(String message, String title);
+
+        void sound();
+
+        void taskbar();
+    }
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final long BATCH_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long DEDUPE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long POPUP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(3);
+    private static final long SOUND_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    // Một lần nhấp nháy kéo dài khoảng 5 giây
+    private static final long TASKBAR_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final int CHANNEL_POPUP = 0;
+    private static final int CHANNEL_SOUND = 1;
+    private static final int CHANNEL_TASKBAR = 2;
+
+    private static final class Notification {
+        final String message;
+        final String title;
+        final NotificationType type;
+
+        Notification(String message, String title, NotificationType type) {
+            this.message = message;
+            this.title = title;
+            this.type = type;
+        }
+
+        String key() {
+            return title + '\n' + message;
+        }
+    }
+
+    private final Sink sink;
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Notification> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    // Chỉ luồng phát truy cập các trường dưới đây
+    private final Map<String, Long> recentlyShown = new HashMap<>();
+    private final List<Notification> pendingPopups = new ArrayList<>();
+    private final long[] channelLastNanos = new long[3];
+    private final boolean[] channelUsed = new boolean[3];
+
+    private volatile Thread worker;
+    private volatile boolean running;
+
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile long mergedCount;
+    private volatile long rateLimitedCount;
+    private volatile long digestCount;
+    private volatile long deliveredCount;
+
+    public NotificationDispatcher(Sink sink) {
+        this(sink, DEFAULT_CAPACITY);
+    }
+
+    public NotificationDispatcher(Sink sink, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Sức chứa hàng đợi phải lớn hơn 0");
+        }
+        this.sink = sink;
+        this.capacity = capacity;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::runLoop, "promonitor-notifier");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread thread = worker;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+    }
+
+    /**
+     * Đưa thông báo vào hàng đợi mà không chờ. Khi hàng đợi đầy, thông báo bị bỏ và được đếm
+     * trong {@link #getDroppedCount()}.
+     *
+     * @return false nếu thông báo bị bỏ
+     */
+    public boolean submit(String message, String title, NotificationType type) {
+        int size = depth.incrementAndGet();
+        if (size > capacity) {
+            depth.decrementAndGet();
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        queue.offer(new Notification(message, title, type));
+        submittedCount.incrementAndGet();
+
+        int max = maxDepth.get();
+        while (size > max && !maxDepth.compareAndSet(max, size)) {
+            max = maxDepth.get();
+        }
+        LockSupport.unpark(worker);
+        return true;
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                if (queue.isEmpty()) {
+                    LockSupport.parkNanos(this, parkNanos(System.nanoTime()));
+                    if (queue.isEmpty()) {
+                        flushPendingPopups(System.nanoTime());
+                        continue;
+                    }
+                }
+                // Chờ thêm một chút để gom các thông báo tới cùng một nhịp
+                LockSupport.parkNanos(this, BATCH_WINDOW_NANOS);
+                dispatch(drain(), System.nanoTime());
+            } catch (RuntimeException e) {
+                logger.error("Lỗi khi phát thông báo", e);
+            }
+        }
+    }
+
+    private long parkNanos(long now) {
+        if (pendingPopups.isEmpty()) {
+            return IDLE_PARK_NANOS;
+        }
+        long wait = channelLastNanos[CHANNEL_POPUP] + POPUP_INTERVAL_NANOS - now;
+        return Math.max(1, Math.min(wait, IDLE_PARK_NANOS));
+    }
+
+    private Map<String, Notification> drain() {
+        Map<String, Notification> batch = new LinkedHashMap<>();
+        Notification notification;
+        while ((notification = queue.poll()) != null) {
+            depth.decrementAndGet();
+            Notification previous = batch.putIfAbsent(notification.key(), notification);
+            if (previous != null) {
+                mergedCount++;
+                if (previous.type != notification.type) {
+                    batch.put(notification.key(), new Notification(previous.message, previous.title,
+                            NotificationType.ALL));
+                }
+            }
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<String, Notification> batch, long now) {
+        expireRecent(now);
+
+        boolean wantSound = false;
+        boolean wantTaskbar = false;
+        for (Notification notification : batch.values()) {
+            Long shownAt = recentlyShown.get(notification.key());
+            if (shownAt != null && now - shownAt < DEDUPE_WINDOW_NANOS) {
+                mergedCount++;
+                continue;
+            }
+            recentlyShown.put(notification.key(), now);
+
+            NotificationType type = notification.type;
+            if (type == NotificationType.POPUP || type == NotificationType.ALL) {
+                pendingPopups.add(notification);
+            }
+            wantSound |= type == NotificationType.SOUND || type == NotificationType.ALL;
+            wantTaskbar |= type == NotificationType.TASKBAR_ICON || type == NotificationType.ALL;
+        }
+
+        flushPendingPopups(now);
+        if (wantSound && acquire(CHANNEL_SOUND, SOUND_INTERVAL_NANOS, now)) {
+            sink.sound();
+            deliveredCount++;
+        }
+        if (wantTaskbar && acquire(CHANNEL_TASKBAR, TASKBAR_INTERVAL_NANOS, now)) {
+            sink.taskbar();
+            deliveredCount++;
+        }
+    }
+
+    /**
+     * Pop-up bị giới hạn tần suất được giữ lại và gộp vào lần phát kế tiếp thay vì bị bỏ.
+     */
+    private void flushPendingPopups(long now) {
+        if (pendingPopups.isEmpty() || !acquire(CHANNEL_POPUP, POPUP_INTERVAL_NANOS, now)) {
+            return;
+        }
+        if (pendingPopups.size() == 1) {
+            Notification notification = pendingPopups.get(0);
+            sink.popup(notification.message, notification.title);
+        } else {
+            StringBuilder digest = new StringBuilder();
+            for (Notification notification : pendingPopups) {
+                if (digest.length() > 0) {
+                    digest.append('\n');
+                }
+                digest.append("• ").append(notification.title).append(": ").append(notification.message);
+            }
+            sink.popup(digest.toString(), "ProMonitor: " + pendingPopups.size() + " thông báo");
+            digestCount++;
+        }
+        deliveredCount++;
+        pendingPopups.clear();
+    }
+
+    private boolean acquire(int channel, long interval, long now) {
+        if (channelUsed[channel] && now - channelLastNanos[channel] < interval) {
+            rateLimitedCount++;
+            return false;
+        }
+        channelUsed[channel] = true;
+        channelLastNanos[channel] = now;
+        return true;
+    }
+
+    private void expireRecent(long now) {
+        Iterator<Long> it = recentlyShown.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next() >= DEDUPE_WINDOW_NANOS) {
+                it.remove();
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxDepth.get();
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getMergedCount() {
+        return mergedCount;
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimitedCount;
+    }
+
+    public long getDigestCount() {
+        return digestCount;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+}
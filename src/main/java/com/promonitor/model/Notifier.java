@@ -39,12 +39,30 @@ public class Notifier implements IConfigurable {
     private final String CONFIG_FILE = "notifier_config.properties";
     private Timer blinkTimer;
     private Stage mainStage;
+    private final NotificationDispatcher dispatcher;
 
     public Notifier(UserSettings userSettings) {
         this.userSettings = userSettings;
         initializeTray();
         loadAlertSound();
         loadSettings();
+        dispatcher = new NotificationDispatcher(new NotificationDispatcher.Sink() {
+            @Override
+            public void popup(String message, String title) {
+                showPopupNotification(message, title);
+            }
+
+            @Override
+            public void sound() {
+                playAlertSound();
+            }
+
+            @Override
+            public void taskbar() {
+                blinkTaskbarIcon();
+            }
+        });
+        dispatcher.start();
     }
 
     private void initializeTray() {
@@ -91,6 +109,9 @@ public class Notifier implements IConfigurable {
         this.mainStage = stage;
     }
 
+    /**
+     * Đưa thông báo vào hàng đợi của luồng phát và trả về ngay, không chờ khay hệ thống hay âm thanh.
+     */
     public void notify(String message, String title, NotificationType type) {
         if (!userSettings.isNotificationsEnabled()) {
             return;
@@ -98,24 +119,15 @@ public class Notifier implements IConfigurable {
 
         logger.debug("Hiển thị thông báo: {}, loại: {}", title, type);
 
-        switch (type) {
-            case SOUND:
-                playAlertSound();
-                break;
-            case TASKBAR_ICON:
-                blinkTaskbarIcon();
-                break;
-            case ALL:
-                showPopupNotification(message, title);
-                playAlertSound();
-                blinkTaskbarIcon();
-                break;
-            default:
-                showPopupNotification(message, title);
-                break;
+        if (!dispatcher.submit(message, title, type)) {
+            logger.warn("Hàng đợi thông báo đầy, bỏ thông báo: {}", title);
         }
     }
 
+    public NotificationDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
     private void showPopupNotification(String message, String title) {
         if (traySupported) {
             trayIcon.displayMessage(title, message, MessageType.INFO);
@@ -237,6 +249,8 @@ public class Notifier implements IConfigurable {
     }
 
     public void cleanup() {
+        dispatcher.stop();
+
         if (alertSound != null) {
             alertSound.stop();
             alertSound.dispose();
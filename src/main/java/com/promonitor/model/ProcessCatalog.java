@@ -0,0 +1,224 @@
+package com.promonitor.model;
+
+import com.promonitor.model.interfaces.IProcessSource;
+import com.promonitor.model.platform.ProcessDelta;
+import com.promonitor.model.platform.ProcessInfo;
+import com.promonitor.model.platform.ProcessSources;
+import com.promonitor.util.IntObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Danh mục tiến trình đang chạy, liệt kê ngay trong JVM qua một {@link IProcessSource}.
+ * Danh mục giữ lại lần quét trước theo cặp (pid, thời điểm bắt đầu): mỗi lần {@link #refresh()}
+ * chỉ đọc đầy đủ và cấp phát cho tiến trình mới, rồi phát phần chênh lệch tới các bên đăng ký
+ * trên một luồng phát riêng, theo đúng thứ tự quét dù {@link #refresh()} được gọi từ nhiều luồng.
+ */
+public class ProcessCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessCatalog.class);
+
+    private static volatile ProcessCatalog defaultCatalog;
+
+    private static final class Entry {
+        final ProcessInfo process;
+        long seenInScan;
+
+        Entry(ProcessInfo process, long seenInScan) {
+            this.process = process;
+            this.seenInScan = seenInScan;
+        }
+    }
+
+    private final IProcessSource source;
+    private final IntObjectHashMap<Entry> known = new IntObjectHashMap<>();
+    private final List<Consumer<ProcessDelta>> subscribers = new CopyOnWriteArrayList<>();
+    private ExecutorService deliveries;
+    private long scanCount;
+    private long changeSequence;
+
+    public ProcessCatalog(IProcessSource source) {
+        this.source = source;
+    }
+
+    /**
+     * @return danh mục dùng chung cho nền tảng hiện tại
+     */
+    public static ProcessCatalog getDefault() {
+        ProcessCatalog catalog = defaultCatalog;
+        if (catalog == null) {
+            synchronized (ProcessCatalog.class) {
+                catalog = defaultCatalog;
+                if (catalog == null) {
+                    catalog = new ProcessCatalog(ProcessSources.forCurrentPlatform());
+                    defaultCatalog = catalog;
+                }
+            }
+        }
+        return catalog;
+    }
+
+    /**
+     * Đăng ký nhận thay đổi của bảng tiến trình. Hàm được gọi trên luồng phát của danh mục,
+     * lần lượt theo thứ tự quét, và chỉ khi có thay đổi.
+     */
+    public void subscribe(Consumer<ProcessDelta> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<ProcessDelta> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Quét lại bảng tiến trình và trả về các tiến trình mới bắt đầu và đã kết thúc kể từ lần quét trước.
+     * Lần quét đầu tiên báo toàn bộ tiến trình là mới.
+     */
+    public ProcessDelta refresh() {
+        ProcessDelta delta;
+        synchronized (this) {
+            long scan = ++scanCount;
+            List<ProcessInfo> started = new ArrayList<>();
+            List<ProcessInfo> exited = new ArrayList<>();
+
+            source.scan(new IProcessSource.Visitor() {
+                @Override
+                public boolean wants(int processId, long startTimeMillis) {
+                    Entry entry = known.get(processId);
+                    if (entry == null) {
+                        return true;
+                    }
+                    if (entry.process.getStartTimeMillis() != startTimeMillis) {
+                        // pid đã được hệ điều hành cấp lại cho một tiến trình khác
+                        exited.add(entry.process);
+                        known.remove(processId);
+                        return true;
+                    }
+                    entry.seenInScan = scan;
+                    return false;
+                }
+
+                @Override
+                public void accept(ProcessInfo process) {
+                    known.put(process.getProcessId(), new Entry(process, scan));
+                    started.add(process);
+                }
+            });
+
+            int firstGone = exited.size();
+            known.forEachValue(entry -> {
+                if (entry.seenInScan != scan) {
+                    exited.add(entry.process);
+                }
+            });
+            for (int i = firstGone; i < exited.size(); i++) {
+                known.remove(exited.get(i).getProcessId());
+            }
+            delta = new ProcessDelta(scan, started, exited);
+            if (!delta.isEmpty()) {
+                changeSequence = scan;
+                logger.trace("Thay đổi bảng tiến trình: {}", delta);
+                // Xếp hàng khi còn giữ khóa để thứ tự phát trùng thứ tự quét
+                if (!subscribers.isEmpty()) {
+                    deliveries().execute(() -> deliver(delta));
+                }
+            }
+        }
+        return delta;
+    }
+
+    private ExecutorService deliveries() {
+        if (deliveries == null) {
+            deliveries = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "promonitor-process-deltas");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return deliveries;
+    }
+
+    private void deliver(ProcessDelta delta) {
+        for (Consumer<ProcessDelta> subscriber : subscribers) {
+            try {
+                subscriber.accept(delta);
+            } catch (RuntimeException e) {
+                logger.error("Lỗi khi xử lý thay đổi bảng tiến trình", e);
+            }
+        }
+    }
+
+    /**
+     * @return số thứ tự của lần quét gần nhất có thay đổi, để bộ đệm dựng từ {@link #getProcesses()}
+     *         biết mình đã cũ mà không phải chờ luồng phát
+     */
+    public synchronized long getChangeSequence() {
+        return changeSequence;
+    }
+
+    /**
+     * @return các tiến trình của lần quét gần nhất
+     */
+    public synchronized List<ProcessInfo> getProcesses() {
+        List<ProcessInfo> processes = new ArrayList<>(known.size());
+        known.forEachValue(entry -> processes.add(entry.process));
+        return processes;
+    }
+
+    /**
+     * @return tiến trình có pid này trong lần quét gần nhất, hoặc null
+     */
+    public synchronized ProcessInfo getProcess(int processId) {
+        Entry entry = known.get(processId);
+        return entry != null ? entry.process : null;
+    }
+
+    /**
+     * Liệt kê đầy đủ bảng tiến trình mà không đụng tới trạng thái của danh mục.
+     */
+    public List<ProcessInfo> snapshot() {
+        List<ProcessInfo> processes = new ArrayList<>();
+        source.scan(new IProcessSource.Visitor() {
+            @Override
+            public boolean wants(int processId, long startTimeMillis) {
+                return true;
+            }
+
+            @Override
+            public void accept(ProcessInfo process) {
+                processes.add(process);
+            }
+        });
+        return processes;
+    }
+
+    public List<Application> listApplications() {
+        refresh();
+        List<ProcessInfo> processes = getProcesses();
+        List<Application> applications = new ArrayList<>(processes.size());
+        for (ProcessInfo process : processes) {
+            if (!process.getCommand().isEmpty()) {
+                applications.add(toApplication(process));
+            }
+        }
+        return applications;
+    }
+
+    public static Application toApplication(ProcessInfo process) {
+        return new Application(process.getCommand(), process.getProcessId(), process.getExecutablePath());
+    }
+
+    public synchronized long getScanCount() {
+        return scanCount;
+    }
+
+    public IProcessSource getSource() {
+        return source;
+    }
+}
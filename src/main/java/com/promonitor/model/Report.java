@@ -38,6 +38,8 @@ public class Report implements IReportable {
     private LocalDate startDate;
     private LocalDate endDate;
     private List<TimeTracker> data;
+    private Map<String, Long> usageHistory;
+    private Map<String, Long> groupUsageHistory;
     private Map<String, Object> reportData;
     private final User user;
 
@@ -74,8 +76,23 @@ public class Report implements IReportable {
         this.data = new ArrayList<>(data);
     }
 
+    /**
+     * Dùng tổng thời gian (ns) theo ứng dụng đọc từ lịch sử sử dụng đã lưu thay cho dữ liệu
+     * của phiên hiện tại. Lịch sử đã bao gồm các khoảng của phiên này.
+     */
+    public void setUsageHistory(Map<String, Long> usageHistory) {
+        this.usageHistory = new HashMap<>(usageHistory);
+    }
+
+    /**
+     * Tổng thời gian (ns) theo nhóm ứng dụng trong cùng khoảng với {@link #setUsageHistory(Map)}.
+     */
+    public void setGroupUsageHistory(Map<String, Long> groupUsageHistory) {
+        this.groupUsageHistory = new HashMap<>(groupUsageHistory);
+    }
+
     public boolean generateReport() {
-        if (data.isEmpty()) {
+        if (data.isEmpty() && (usageHistory == null || usageHistory.isEmpty())) {
             logger.warn("Không thể tạo báo cáo: Không có dữ liệu");
             return false;
         }
@@ -247,44 +264,38 @@ public class Report implements IReportable {
         reportData.put("endDate", endDate);
         reportData.put("username", user.getUserName());
 
-        // Lọc dữ liệu theo khoảng thời gian
-        List<TimeTracker> filteredData = data.stream()
-                .filter(tt -> {
-                    LocalDate trackDate = tt.getStartTime().toLocalDate();
-                    return !trackDate.isBefore(startDate) && !trackDate.isAfter(endDate);
-                })
-                .toList();
+        Map<String, long[]> appUsageMap = new HashMap<>();
+        if (usageHistory != null) {
+            usageHistory.forEach((appName, nanos) -> appUsageMap.put(appName, new long[]{nanos}));
+        } else {
+            // Chỉ lấy phần thời gian rơi vào khoảng ngày của báo cáo, kể cả của bộ đếm đã gộp
+            for (TimeTracker tt : data) {
+                long nanos = tt.getNanosBetween(startDate, endDate);
+                if (nanos > 0) {
+                    appUsageMap.computeIfAbsent(tt.getApplication().getName(), name -> new long[1])[0] += nanos;
+                }
+            }
+        }
 
         // Tính tổng thời gian sử dụng
-        Duration totalUsage = Duration.ZERO;
-        for (TimeTracker tt : filteredData) {
-            totalUsage = totalUsage.plus(tt.getTotalTime());
+        long totalNanos = 0;
+        for (long[] nanos : appUsageMap.values()) {
+            totalNanos += nanos[0];
         }
+        Duration totalUsage = Duration.ofNanos(totalNanos);
 
         reportData.put("totalUsageTime", formatDuration(totalUsage));
         reportData.put("totalUsageMinutes", totalUsage.toMinutes());
 
-        // Nhóm theo ứng dụng
-        Map<String, Duration> appUsageMap = new HashMap<>();
-        for (TimeTracker tt : filteredData) {
-            String appName = tt.getApplication().getName();
-            Duration appTime = tt.getTotalTime();
-
-            if (appUsageMap.containsKey(appName)) {
-                appUsageMap.put(appName, appUsageMap.get(appName).plus(appTime));
-            } else {
-                appUsageMap.put(appName, appTime);
-            }
-        }
-
         // Chuyển đổi thành danh sách các map để dễ xử lý trong views
         List<Map<String, Object>> appUsageData = new ArrayList<>();
-        for (Map.Entry<String, Duration> entry : appUsageMap.entrySet()) {
+        for (Map.Entry<String, long[]> entry : appUsageMap.entrySet()) {
+            Duration appTime = Duration.ofNanos(entry.getValue()[0]);
             Map<String, Object> appData = new HashMap<>();
             appData.put("appName", entry.getKey());
-            appData.put("usageTime", formatDuration(entry.getValue()));
-            appData.put("usageMinutes", entry.getValue().toMinutes());
-            appData.put("usageHours", entry.getValue().toHours());
+            appData.put("usageTime", formatDuration(appTime));
+            appData.put("usageMinutes", appTime.toMinutes());
+            appData.put("usageHours", appTime.toHours());
             appUsageData.add(appData);
         }
 
@@ -293,6 +304,20 @@ public class Report implements IReportable {
 
         reportData.put("appUsageData", appUsageData);
 
+        List<Map<String, Object>> groupUsageData = new ArrayList<>();
+        if (groupUsageHistory != null) {
+            for (Map.Entry<String, Long> entry : groupUsageHistory.entrySet()) {
+                Duration groupTime = Duration.ofNanos(entry.getValue());
+                Map<String, Object> groupData = new HashMap<>();
+                groupData.put("groupName", entry.getKey());
+                groupData.put("usageTime", formatDuration(groupTime));
+                groupData.put("usageMinutes", groupTime.toMinutes());
+                groupUsageData.add(groupData);
+            }
+            groupUsageData.sort((a, b) -> Long.compare((Long)b.get("usageMinutes"), (Long)a.get("usageMinutes")));
+        }
+        reportData.put("groupUsageData", groupUsageData);
+
         // Thêm ngày giờ hiện tại
         reportData.put("generatedAt", LocalDateTime.now());
 
@@ -1,40 +1,135 @@
 package com.promonitor.model;
 
 import java.time.DayOfWeek;
-import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Lịch trình theo tuần, được biên dịch thành bitmap 10.080 bit (một bit cho mỗi phút trong tuần,
+ * phút 0 là 00:00 thứ Hai) để kiểm tra trong O(1). Mỗi ngày có thể có nhiều khoảng; khoảng có
+ * giờ kết thúc trước giờ bắt đầu được hiểu là kéo qua nửa đêm sang ngày hôm sau.
+ */
 public class Schedule {
-    private final Map<DayOfWeek, TimeRange> scheduledTimes;
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    private static final int WORDS = (MINUTES_PER_WEEK + 63) / 64;
+
+    private final Map<DayOfWeek, List<TimeRange>> scheduledTimes;
+    private final long[] allowedMinutes = new long[WORDS];
+    private int allowedCount;
 
     public Schedule() {
         this.scheduledTimes = new EnumMap<>(DayOfWeek.class);
     }
 
+    /**
+     * Thay mọi khoảng của ngày {@code day} bằng một khoảng duy nhất.
+     */
     public void setTimeForDay(DayOfWeek day, LocalTime startTime, LocalTime endTime) {
-        scheduledTimes.put(day, new TimeRange(startTime, endTime));
+        List<TimeRange> ranges = new ArrayList<>();
+        ranges.add(new TimeRange(startTime, endTime));
+        scheduledTimes.put(day, ranges);
+        compile();
+    }
+
+    public void addTimeForDay(DayOfWeek day, LocalTime startTime, LocalTime endTime) {
+        scheduledTimes.computeIfAbsent(day, d -> new ArrayList<>()).add(new TimeRange(startTime, endTime));
+        compile();
     }
 
     public void removeDay(DayOfWeek day) {
         scheduledTimes.remove(day);
+        compile();
     }
 
     public boolean isCurrentTimeWithinSchedule() {
-        DayOfWeek today = LocalDate.now().getDayOfWeek();
-        LocalTime now = LocalTime.now();
+        return isWithinSchedule(minuteOfWeek(LocalDateTime.now()));
+    }
+
+    public boolean isWithinSchedule(LocalDateTime time) {
+        return isWithinSchedule(minuteOfWeek(time));
+    }
+
+    public boolean isWithinSchedule(int minuteOfWeek) {
+        return (allowedMinutes[minuteOfWeek >>> 6] & (1L << minuteOfWeek)) != 0;
+    }
+
+    /**
+     * @return số phút từ đầu phút {@code minuteOfWeek} tới lần đầu trạng thái được phép/bị chặn
+     *         đổi khác, hoặc -1 nếu lịch trình không bao giờ đổi trạng thái
+     */
+    public int minutesUntilNextTransition(int minuteOfWeek) {
+        if (allowedCount == 0 || allowedCount == MINUTES_PER_WEEK) {
+            return -1;
+        }
 
-        if (scheduledTimes.containsKey(today)) {
-            TimeRange range = scheduledTimes.get(today);
-            return range.contains(now);
+        boolean allowed = isWithinSchedule(minuteOfWeek);
+        // Tìm bit đầu tiên khác trạng thái hiện tại, quét từng từ 64 bit và quay vòng qua cuối tuần
+        for (int scanned = 0; scanned < MINUTES_PER_WEEK; ) {
+            int minute = (minuteOfWeek + scanned) % MINUTES_PER_WEEK;
+            int offset = minute & 63;
+            long word = allowedMinutes[minute >>> 6];
+            if (allowed) {
+                word = ~word;
+            }
+            word &= -1L << offset;
+
+            int wordEnd = Math.min(((minute >>> 6) + 1) << 6, MINUTES_PER_WEEK);
+            if (word != 0) {
+                int found = ((minute >>> 6) << 6) + Long.numberOfTrailingZeros(word);
+                if (found < wordEnd) {
+                    return scanned + (found - minute);
+                }
+            }
+            scanned += wordEnd - minute;
+        }
+        return -1;
+    }
+
+    public static int minuteOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY
+                + time.getHour() * 60 + time.getMinute();
+    }
+
+    private void compile() {
+        Arrays.fill(allowedMinutes, 0);
+        for (Map.Entry<DayOfWeek, List<TimeRange>> entry : scheduledTimes.entrySet()) {
+            int dayStart = (entry.getKey().getValue() - 1) * MINUTES_PER_DAY;
+            for (TimeRange range : entry.getValue()) {
+                int start = range.getStartTime().toSecondOfDay() / 60;
+                int end = range.getEndTime().toSecondOfDay() / 60;
+                int length = end >= start ? end - start : MINUTES_PER_DAY - start + end;
+                for (int i = 0; i < length; i++) {
+                    int minute = (dayStart + start + i) % MINUTES_PER_WEEK;
+                    allowedMinutes[minute >>> 6] |= 1L << minute;
+                }
+            }
         }
 
-        return false;
+        int count = 0;
+        for (long word : allowedMinutes) {
+            count += Long.bitCount(word);
+        }
+        allowedCount = count;
     }
 
+    /**
+     * @return khoảng đầu tiên của ngày, hoặc null nếu ngày không có khoảng nào
+     */
     public TimeRange getTimeForDay(DayOfWeek day) {
-        return scheduledTimes.get(day);
+        List<TimeRange> ranges = scheduledTimes.get(day);
+        return ranges != null && !ranges.isEmpty() ? ranges.get(0) : null;
+    }
+
+    public List<TimeRange> getTimesForDay(DayOfWeek day) {
+        List<TimeRange> ranges = scheduledTimes.get(day);
+        return ranges != null ? Collections.unmodifiableList(ranges) : List.of();
     }
 
     public static class TimeRange {
@@ -47,7 +142,14 @@ public class Schedule {
         }
 
         public boolean contains(LocalTime time) {
-            return !time.isBefore(startTime) && !time.isAfter(endTime);
+            if (endTime.isBefore(startTime)) {
+                return !time.isBefore(startTime) || time.isBefore(endTime);
+            }
+            return !time.isBefore(startTime) && time.isBefore(endTime);
+        }
+
+        public boolean isOvernight() {
+            return endTime.isBefore(startTime);
         }
 
         public LocalTime getStartTime() {
@@ -60,18 +162,23 @@ public class Schedule {
 
         @Override
         public String toString() {
-            return startTime + " - " + endTime;
+            return startTime + " - " + endTime + (isOvernight() ? " (hôm sau)" : "");
         }
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("Lịch trình: ");
-        for (Map.Entry<DayOfWeek, TimeRange> entry : scheduledTimes.entrySet()) {
+        for (Map.Entry<DayOfWeek, List<TimeRange>> entry : scheduledTimes.entrySet()) {
             sb.append("\n  ")
                     .append(getDayName(entry.getKey()))
-                    .append(": ")
-                    .append(entry.getValue());
+                    .append(": ");
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(entry.getValue().get(i));
+            }
         }
         return sb.toString();
     }
@@ -87,4 +194,4 @@ public class Schedule {
             case SUNDAY -> "Chủ Nhật";
         };
     }
-}
\ No newline at end of file
+}
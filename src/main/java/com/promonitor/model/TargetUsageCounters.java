@@ -0,0 +1,183 @@
+package com.promonitor.model;
+
+import com.promonitor.util.IntObjectHashMap;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Thời gian sử dụng của các đối tượng giới hạn gồm nhiều cửa sổ (nhóm ứng dụng, mẫu tệp thực thi
+ * hoặc tiêu đề), cộng dồn mỗi khi một khoảng hoạt động kết thúc thay vì quét lại mọi bộ đếm.
+ * Chỉ mục ngược id ứng dụng -> đối tượng được tính một lần cho mỗi id và chỉ bị xóa khi đối
+ * tượng hoặc giới hạn thay đổi ({@link #rebuild}) hoặc khi id được giải phóng. Thời gian của bộ
+ * đếm đã bị loại được giữ riêng theo đối tượng ({@link #retire}) để lần dựng lại sau không mất nó.
+ * Mọi phương thức đều được đồng bộ trên chính đối tượng này.
+ */
+public class TargetUsageCounters {
+    private static final Object[] NO_TARGETS = new Object[0];
+
+    private final Map<Object, Counter> counters = new HashMap<>();
+    private final IntObjectHashMap<Object[]> targetsByApp = new IntObjectHashMap<>();
+    private final Map<Object, Long> retiredNanos = new HashMap<>();
+    private final Map<Object, TreeMap<LocalDate, Long>> retiredByDay = new HashMap<>();
+    private Function<Application, Object[]> resolver = app -> NO_TARGETS;
+
+    private int activeAppId = -1;
+    private Object[] activeTargets = NO_TARGETS;
+    private long activeSince;
+
+    /**
+     * Dựng lại bộ đếm cho tập đối tượng mới từ tổng thời gian hiện có của các bộ đếm ứng dụng
+     * cộng với thời gian đã giữ lại từ các bộ đếm bị loại.
+     * Chi phí tỉ lệ với số bộ đếm, nên chỉ gọi khi đối tượng hoặc giới hạn thay đổi.
+     *
+     * @param resolver trả về các đối tượng (trong {@code targets}) chứa một ứng dụng
+     */
+    public synchronized void rebuild(Collection<?> targets, Function<Application, Object[]> resolver,
+                                     List<TimeTracker> trackers, Application activeApplication, long now) {
+        counters.clear();
+        targetsByApp.clear();
+        this.resolver = resolver;
+        for (Object target : targets) {
+            counters.put(target, new Counter());
+        }
+        retiredNanos.keySet().retainAll(counters.keySet());
+        retiredByDay.keySet().retainAll(counters.keySet());
+        retiredNanos.forEach((target, nanos) -> counters.get(target).nanos += nanos);
+
+        for (TimeTracker tracker : trackers) {
+            Object[] matched = resolver.apply(tracker.getApplication());
+            if (matched.length == 0) {
+                continue;
+            }
+            long total = tracker.getTotalNanos(now);
+            for (Object target : matched) {
+                counters.get(target).nanos += total;
+            }
+        }
+
+        // Khoảng đang chạy đã nằm trong tổng ở trên, bắt đầu tính lại từ thời điểm này
+        activeTargets = activeAppId >= 0 ? targetsOf(activeAppId, activeApplication) : NO_TARGETS;
+        activeSince = now;
+    }
+
+    /**
+     * Đóng khoảng hoạt động hiện tại và bắt đầu khoảng mới cho ứng dụng {@code appId}.
+     */
+    public synchronized void switchTo(int appId, Application application, long at) {
+        closeActive(at);
+        activeAppId = appId;
+        activeTargets = targetsOf(appId, application);
+    }
+
+    public synchronized void stop(long at) {
+        closeActive(at);
+        activeAppId = -1;
+        activeTargets = NO_TARGETS;
+    }
+
+    /**
+     * Gọi khi bộ đếm của {@code appId} bị loại: thời gian của nó vẫn được tính cho các đối tượng
+     * chứa nó ở những lần dựng lại sau. Sau đó gọi {@link #release(int)}.
+     */
+    public synchronized void retire(int appId, TimeTracker tracker) {
+        long totalNanos = tracker.getTotalNanos();
+        if (totalNanos <= 0) {
+            return;
+        }
+        Map<LocalDate, Long> byDay = tracker.getNanosByDay();
+        for (Object target : targetsOf(appId, tracker.getApplication())) {
+            retiredNanos.merge(target, totalNanos, Long::sum);
+            TreeMap<LocalDate, Long> days = retiredByDay.computeIfAbsent(target, key -> new TreeMap<>());
+            byDay.forEach((day, nanos) -> days.merge(day, nanos, Long::sum));
+        }
+    }
+
+    /**
+     * @return thời gian của các bộ đếm đã bị loại thuộc {@code target}, tính trước ngày {@code day}
+     */
+    public synchronized long getRetiredNanosBefore(Object target, LocalDate day) {
+        TreeMap<LocalDate, Long> days = retiredByDay.get(target);
+        if (days == null) {
+            return 0;
+        }
+        long nanos = 0;
+        for (long value : days.headMap(day).values()) {
+            nanos += value;
+        }
+        return nanos;
+    }
+
+    /**
+     * @return các đối tượng (trong lần dựng lại gần nhất) chứa ứng dụng này
+     */
+    public synchronized Object[] resolve(Application application) {
+        return resolver.apply(application);
+    }
+
+    /**
+     * Gọi khi id ứng dụng được giải phóng để id dùng lại sau này không nhận nhầm đối tượng cũ.
+     */
+    public synchronized void release(int appId) {
+        targetsByApp.remove(appId);
+    }
+
+    /**
+     * @return các đối tượng chứa ứng dụng đang hoạt động; không được sửa mảng trả về
+     */
+    public synchronized Object[] getActiveTargets() {
+        return activeTargets;
+    }
+
+    public synchronized long getUsageNanos(Object target, long now) {
+        Counter counter = counters.get(target);
+        if (counter == null) {
+            return 0;
+        }
+        long nanos = counter.nanos;
+        for (Object activeTarget : activeTargets) {
+            if (activeTarget.equals(target)) {
+                nanos += Math.max(0, now - activeSince);
+                break;
+            }
+        }
+        return nanos;
+    }
+
+    public synchronized Map<Object, Duration> snapshot(long now) {
+        Map<Object, Duration> usage = new HashMap<>();
+        for (Object target : counters.keySet()) {
+            usage.put(target, Duration.ofNanos(getUsageNanos(target, now)));
+        }
+        return usage;
+    }
+
+    private void closeActive(long at) {
+        long elapsed = at - activeSince;
+        if (elapsed > 0) {
+            for (Object target : activeTargets) {
+                counters.get(target).nanos += elapsed;
+            }
+        }
+        activeSince = at;
+    }
+
+    private Object[] targetsOf(int appId, Application application) {
+        Object[] targets = targetsByApp.get(appId);
+        if (targets == null) {
+            targets = resolver.apply(application);
+            targetsByApp.put(appId, targets);
+        }
+        return targets;
+    }
+
+    private static final class Counter {
+        private long nanos;
+    }
+}
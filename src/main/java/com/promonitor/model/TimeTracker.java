@@ -1,88 +1,207 @@
 package com.promonitor.model;
 
+import com.promonitor.model.interfaces.IClock;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class TimeTracker {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
     private final Application application;
+    private final IClock clock;
     private final ObjectProperty<Duration> totalTime = new SimpleObjectProperty<>(Duration.ZERO);
+
+    // Thời gian được tích lũy bằng nano giây đơn điệu, không bị ảnh hưởng khi đồng hồ hệ thống bị chỉnh
+    private volatile long accumulatedNanos;
+    private volatile long activeSinceNanos;
+    private volatile boolean isRunning;
+
+    // Mốc ngày giờ chỉ dùng để hiển thị và lọc báo cáo theo ngày
     private LocalDateTime startTime;
     private LocalDateTime endTime;
-    private boolean isRunning;
-    private LocalDateTime lastActiveTime;
+    // Thời gian đã khép lại, chia theo ngày địa phương; chỉ luồng lấy mẫu ghi
+    private final Map<LocalDate, Long> nanosByDay = new TreeMap<>();
 
     public TimeTracker(Application application) {
+        this(application, IClock.SYSTEM);
+    }
+
+    public TimeTracker(Application application, IClock clock) {
         this.application = application;
-        this.totalTime.set(Duration.ZERO);
+        this.clock = clock;
         this.isRunning = false;
     }
 
     public void startTracking() {
+        startTracking(clock.nanoTime());
+    }
+
+    public void startTracking(long nowNanos) {
         if (!isRunning) {
-            startTime = LocalDateTime.now();
-            lastActiveTime = startTime;
+            if (startTime == null) {
+                startTime = wallClockAt(nowNanos);
+            }
+            activeSinceNanos = nowNanos;
             isRunning = true;
         }
     }
 
     public void stopTracking() {
+        stopTracking(clock.nanoTime());
+    }
+
+    public void stopTracking(long nowNanos) {
         if (isRunning) {
-            endTime = LocalDateTime.now();
-            updateTotalTime();
+            accumulate(activeSinceNanos, nowNanos);
             isRunning = false;
+            endTime = wallClockAt(nowNanos);
+            totalTime.set(Duration.ofNanos(accumulatedNanos));
         }
     }
 
     public void updateActiveTime() {
         if (isRunning) {
-            LocalDateTime now = LocalDateTime.now();
-            Duration sessionDuration = Duration.between(lastActiveTime, now);
-            totalTime.set(totalTime.get().plus(sessionDuration));
+            long now = clock.nanoTime();
+            accumulate(activeSinceNanos, now);
+            activeSinceNanos = now;
+        }
+    }
+
+    /**
+     * Cộng dồn thời gian của một bộ đếm khác (đã dừng) vào bộ đếm này, dùng khi gộp bộ đếm cũ.
+     */
+    public void absorb(TimeTracker other) {
+        accumulatedNanos += other.getTotalNanos();
+        totalTime.set(Duration.ofNanos(accumulatedNanos));
+        synchronized (nanosByDay) {
+            other.getNanosByDay().forEach((day, nanos) -> nanosByDay.merge(day, nanos, Long::sum));
+        }
 
-            lastActiveTime = now;
+        if (other.startTime != null && (startTime == null || other.startTime.isBefore(startTime))) {
+            startTime = other.startTime;
+        }
+        if (other.endTime != null && (endTime == null || other.endTime.isAfter(endTime))) {
+            endTime = other.endTime;
         }
     }
 
-    private void updateTotalTime() {
-        if (startTime != null && endTime != null) {
-            Duration sessionDuration = Duration.between(lastActiveTime, endTime);
-            totalTime.set(totalTime.get().plus(sessionDuration));
+    /**
+     * Cộng khoảng [fromNanos, toNanos) vào tổng và chia nó theo các ranh giới nửa đêm.
+     */
+    private void accumulate(long fromNanos, long toNanos) {
+        if (toNanos <= fromNanos) {
+            return;
+        }
+        accumulatedNanos += toNanos - fromNanos;
+
+        long offsetMillis = clock.currentTimeMillis() - clock.nanoTime() / 1_000_000L;
+        ZoneId zone = ZoneId.systemDefault();
+        synchronized (nanosByDay) {
+            long pieceStart = fromNanos;
+            while (pieceStart < toNanos) {
+                LocalDate day = Instant.ofEpochMilli(offsetMillis + pieceStart / 1_000_000L).atZone(zone).toLocalDate();
+                long nextMidnightMillis = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                long pieceEnd = Math.min(toNanos, (nextMidnightMillis - offsetMillis) * 1_000_000L);
+                if (pieceEnd <= pieceStart) {
+                    pieceEnd = toNanos;
+                }
+                nanosByDay.merge(day, pieceEnd - pieceStart, Long::sum);
+                pieceStart = pieceEnd;
+            }
         }
     }
 
-    public Duration getTotalTime() {
+    /**
+     * @return thời gian đã khép lại theo từng ngày; không gồm khoảng đang chạy
+     */
+    public Map<LocalDate, Long> getNanosByDay() {
+        synchronized (nanosByDay) {
+            return new TreeMap<>(nanosByDay);
+        }
+    }
+
+    /**
+     * Phần thời gian sử dụng (kể cả khoảng đang chạy) rơi vào trước nửa đêm đầu ngày {@code day}.
+     */
+    public long getNanosBefore(LocalDate day, long nowNanos) {
+        long before = 0;
+        synchronized (nanosByDay) {
+            for (Map.Entry<LocalDate, Long> entry : nanosByDay.entrySet()) {
+                if (!entry.getKey().isBefore(day)) {
+                    break;
+                }
+                before += entry.getValue();
+            }
+        }
         if (isRunning) {
-            LocalDateTime now = LocalDateTime.now();
-            Duration currentSessionTime = Duration.between(lastActiveTime, now);
-            return totalTime.get().plus(currentSessionTime);
+            long offsetMillis = clock.currentTimeMillis() - clock.nanoTime() / 1_000_000L;
+            long dayStartMillis = day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            long dayStartNanos = (dayStartMillis - offsetMillis) * 1_000_000L;
+            before += Math.max(0, Math.min(nowNanos, dayStartNanos) - activeSinceNanos);
         }
-        return totalTime.get();
+        return before;
+    }
+
+    /**
+     * @return thời gian sử dụng (kể cả khoảng đang chạy) trong các ngày từ {@code from} tới hết {@code to}
+     */
+    public long getNanosBetween(LocalDate from, LocalDate to) {
+        long now = clock.nanoTime();
+        return Math.max(0, getNanosBefore(to.plusDays(1), now) - getNanosBefore(from, now));
+    }
+
+    public long getTotalNanos() {
+        return getTotalNanos(clock.nanoTime());
+    }
+
+    /**
+     * Tổng thời gian tại thời điểm {@code nowNanos}; cho phép cả vòng lặp tổng hợp dùng chung một lần đọc đồng hồ.
+     */
+    public long getTotalNanos(long nowNanos) {
+        if (isRunning) {
+            return accumulatedNanos + Math.max(0, nowNanos - activeSinceNanos);
+        }
+        return accumulatedNanos;
+    }
+
+    public Duration getTotalTime() {
+        return Duration.ofNanos(getTotalNanos());
     }
 
     public long getTotalTimeInSeconds() {
-        return getTotalTime().getSeconds();
+        return getTotalNanos() / NANOS_PER_SECOND;
     }
 
     public long getTotalTimeInMinutes() {
-        return getTotalTime().toMinutes();
+        return getTotalTimeInSeconds() / 60;
     }
 
     public long getTotalTimeInHours() {
-        return getTotalTime().toHours();
+        return getTotalTimeInSeconds() / 3600;
     }
 
     public String getFormattedTotalTime() {
-        Duration duration = getTotalTime();
-        long hours = duration.toHours();
-        int minutes = duration.toMinutesPart();
-        int seconds = duration.toSecondsPart();
+        long totalSeconds = getTotalTimeInSeconds();
+        long hours = totalSeconds / 3600;
+        long minutes = (totalSeconds / 60) % 60;
+        long seconds = totalSeconds % 60;
 
         return String.format("%02d:%02d:%02d", hours, minutes, seconds);
     }
-    
+
+    private LocalDateTime wallClockAt(long nanos) {
+        long millis = clock.currentTimeMillis() - (clock.nanoTime() - nanos) / 1_000_000L;
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
     public Application getApplication() {
         return application;
     }
@@ -108,4 +227,4 @@ public class TimeTracker {
         return "TimeTracker: " + application + " - " + getFormattedTotalTime() +
                 (isRunning ? " (đang chạy)" : "");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.promonitor.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Quy tắc tường minh ánh xạ tiêu đề cửa sổ sang tên tiến trình thực thi, dùng khi chặn một ứng dụng
+ * chỉ được biết qua tiêu đề. Ví dụ "... - Google Chrome" được chặn theo tiến trình "chrome".
+ * Quy tắc chỉ khớp phần đuôi tiêu đề mà trình duyệt tự thêm vào, không khớp giữa tiêu đề.
+ */
+public class TitleExecutableRules {
+    private final List<String[]> rules = new ArrayList<>();
+
+    /**
+     * @return bộ quy tắc cho các trình duyệt phổ biến
+     */
+    public static TitleExecutableRules defaults() {
+        return new TitleExecutableRules()
+                .add(" - Google Chrome", "chrome")
+                .add(" - Mozilla Firefox", "firefox")
+                .add(" \u2014 Mozilla Firefox", "firefox")
+                .add(" - Microsoft Edge", "msedge")
+                .add(" - Microsoft\u200b Edge", "msedge")
+                .add(" - Opera", "opera")
+                .add(" - Brave", "brave");
+    }
+
+    /**
+     * @param titleSuffix phần đuôi tiêu đề, không phân biệt hoa thường
+     * @param executable tên ảnh tiến trình cần chặn
+     */
+    public synchronized TitleExecutableRules add(String titleSuffix, String executable) {
+        rules.add(new String[]{titleSuffix.toLowerCase(Locale.ROOT), executable});
+        return this;
+    }
+
+    public synchronized Set<String> resolve(String title) {
+        Set<String> executables = new LinkedHashSet<>();
+        if (title == null || rules.isEmpty()) {
+            return executables;
+        }
+        String lower = title.strip().toLowerCase(Locale.ROOT);
+        for (String[] rule : rules) {
+            if (lower.endsWith(rule[0])) {
+                executables.add(rule[1]);
+            }
+        }
+        return executables;
+    }
+}
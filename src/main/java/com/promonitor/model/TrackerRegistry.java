@@ -0,0 +1,194 @@
+package com.promonitor.model;
+
+import com.promonitor.model.interfaces.IClock;
+import com.promonitor.util.IntObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Tập bộ đếm thời gian theo từng cửa sổ, có giới hạn kích thước. Khi vượt giới hạn,
+ * bộ đếm ít được dùng gần đây nhất (không đang chạy và không bị ghim) bị loại và thời gian
+ * của nó (kể cả phần chia theo ngày) được gộp vào bộ đếm theo tệp thực thi, nên tổng thời gian không đổi.
+ * Bộ đếm được giới hạn thời gian tham chiếu tới thì bị ghim, vì loại nó sẽ làm mất mốc của giới hạn.
+ * Mọi phương thức đều được đồng bộ trên chính đối tượng này.
+ */
+public class TrackerRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(TrackerRegistry.class);
+
+    private static final int NONE = -1;
+    private static final String UNKNOWN_EXECUTABLE = "Khác";
+
+    private final IntObjectHashMap<TimeTracker> trackers = new IntObjectHashMap<>();
+    // Bộ đếm gộp giữ cả phần chia theo ngày của bộ đếm bị loại, nên báo cáo theo ngày vẫn đúng
+    private final Map<String, TimeTracker> executableRollups = new HashMap<>();
+    private final IClock clock;
+    private final ObjIntConsumer<TimeTracker> evictionListener;
+    private Predicate<Application> pinned = app -> false;
+
+    // Danh sách liên kết đôi theo thứ tự sử dụng, đánh chỉ số trực tiếp bằng id ứng dụng
+    private int[] prev = new int[64];
+    private int[] next = new int[64];
+    private int head = NONE;
+    private int tail = NONE;
+
+    private int capacity;
+    private long evictedCount;
+
+    /**
+     * @param evictionListener được gọi với bộ đếm bị loại và id của nó, trước khi id được dùng lại
+     */
+    public TrackerRegistry(int capacity, IClock clock, ObjIntConsumer<TimeTracker> evictionListener) {
+        this.capacity = Math.max(1, capacity);
+        this.clock = clock;
+        this.evictionListener = evictionListener;
+    }
+
+    public synchronized TimeTracker get(int appId) {
+        return trackers.get(appId);
+    }
+
+    public synchronized void put(int appId, TimeTracker tracker) {
+        ensureIndex(appId);
+        if (trackers.put(appId, tracker) == null) {
+            linkFirst(appId);
+        } else {
+            moveToFront(appId);
+        }
+        evictOverflow();
+    }
+
+    /**
+     * Đánh dấu bộ đếm vừa được sử dụng.
+     */
+    public synchronized void touch(int appId) {
+        if (trackers.containsKey(appId)) {
+            moveToFront(appId);
+        }
+    }
+
+    /**
+     * Bộ đếm thỏa {@code pinned} không bao giờ bị loại.
+     */
+    public synchronized void setPinned(Predicate<Application> pinned) {
+        this.pinned = pinned;
+    }
+
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        evictOverflow();
+    }
+
+    private void evictOverflow() {
+        int candidate = tail;
+        while (trackers.size() > capacity && candidate != NONE) {
+            int before = prev[candidate];
+            TimeTracker tracker = trackers.get(candidate);
+            if (!tracker.isRunning() && !pinned.test(tracker.getApplication())) {
+                evict(candidate, tracker);
+            }
+            candidate = before;
+        }
+    }
+
+    private void evict(int appId, TimeTracker tracker) {
+        unlink(appId);
+        trackers.remove(appId);
+
+        String executable = executableKey(tracker.getApplication());
+        TimeTracker rollup = executableRollups.computeIfAbsent(executable, name -> new TimeTracker(
+                new Application(name, 0, tracker.getApplication().getExecutablePath()), clock));
+        rollup.absorb(tracker);
+
+        evictedCount++;
+        logger.debug("Đã gộp bộ đếm của {} vào {}", tracker.getApplication().getName(), executable);
+
+        if (evictionListener != null) {
+            evictionListener.accept(tracker, appId);
+        }
+    }
+
+    private static String executableKey(Application app) {
+        String path = app.getExecutablePath();
+        if (path == null || path.isEmpty()) {
+            return UNKNOWN_EXECUTABLE;
+        }
+        return new File(path).getName();
+    }
+
+    private void ensureIndex(int appId) {
+        if (appId >= prev.length) {
+            int size = Math.max(prev.length << 1, appId + 1);
+            prev = Arrays.copyOf(prev, size);
+            next = Arrays.copyOf(next, size);
+        }
+    }
+
+    private void linkFirst(int appId) {
+        prev[appId] = NONE;
+        next[appId] = head;
+        if (head != NONE) {
+            prev[head] = appId;
+        }
+        head = appId;
+        if (tail == NONE) {
+            tail = appId;
+        }
+    }
+
+    private void unlink(int appId) {
+        int before = prev[appId];
+        int after = next[appId];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        } else {
+            tail = before;
+        }
+    }
+
+    private void moveToFront(int appId) {
+        if (head != appId) {
+            unlink(appId);
+            linkFirst(appId);
+        }
+    }
+
+    /**
+     * @return bộ đếm theo cửa sổ đang giữ cùng các bộ đếm gộp theo tệp thực thi
+     */
+    public synchronized List<TimeTracker> getAllTimeTrackers() {
+        List<TimeTracker> all = new ArrayList<>(trackers.size() + executableRollups.size());
+        trackers.forEachValue(all::add);
+        all.addAll(executableRollups.values());
+        return all;
+    }
+
+    public synchronized List<TimeTracker> getLiveTrackers() {
+        return trackers.values();
+    }
+
+    public synchronized int size() {
+        return trackers.size();
+    }
+
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,18 @@
+package com.promonitor.model.enums;
+
+public enum LimitState {
+    OK("Bình thường"),
+    WARNED("Đã cảnh báo"),
+    EXCEEDED("Đã vượt giới hạn"),
+    BLOCKED("Đã chặn");
+
+    private final String displayName;
+
+    LimitState(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,17 @@
+package com.promonitor.model.enums;
+
+public enum LimitTargetType {
+    EXECUTABLE("Tệp thực thi"),
+    TITLE_GLOB("Tiêu đề theo mẫu (*, ?)"),
+    TITLE_REGEX("Tiêu đề theo biểu thức chính quy");
+
+    private final String displayName;
+
+    LimitTargetType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,41 @@
+package com.promonitor.model.enums;
+
+import java.time.Duration;
+
+/**
+ * Các tầng dữ liệu sử dụng, từ khoảng thô tới tổng theo ngày, cùng thời gian lưu giữ của từng tầng.
+ */
+public enum RollupTier {
+    RAW("Khoảng thô", Duration.ZERO, Duration.ofDays(14)),
+    MINUTE("Theo phút", Duration.ofMinutes(1), Duration.ofDays(90)),
+    HOUR("Theo giờ", Duration.ofHours(1), Duration.ofDays(365)),
+    DAY("Theo ngày", Duration.ofDays(1), null);
+
+    private final String displayName;
+    private final Duration bucket;
+    private final Duration retention;
+
+    RollupTier(String displayName, Duration bucket, Duration retention) {
+        this.displayName = displayName;
+        this.bucket = bucket;
+        this.retention = retention;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return độ rộng một ô; tầng DAY theo ngày lịch của múi giờ hệ thống
+     */
+    public Duration getBucket() {
+        return bucket;
+    }
+
+    /**
+     * @return thời gian lưu giữ, null nếu giữ mãi
+     */
+    public Duration getRetention() {
+        return retention;
+    }
+}
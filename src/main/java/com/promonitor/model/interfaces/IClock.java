@@ -0,0 +1,23 @@
+package com.promonitor.model.interfaces;
+
+/**
+ * Nguồn thời gian có thể thay thế: đồng hồ đơn điệu để đo khoảng thời gian
+ * và đồng hồ hệ thống để gắn mốc ngày giờ.
+ */
+public interface IClock {
+    IClock SYSTEM = new IClock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    long nanoTime();
+
+    long currentTimeMillis();
+}
@@ -0,0 +1,43 @@
+package com.promonitor.model.interfaces;
+
+import com.promonitor.model.platform.FocusChangedEvent;
+import com.promonitor.model.platform.ForegroundSample;
+import com.promonitor.model.platform.ProcessDelta;
+
+import java.util.function.Consumer;
+
+/**
+ * Nguồn cung cấp cửa sổ đang ở tiền cảnh cho Monitor.
+ * Mỗi lần gọi {@link #poll(ForegroundSample)} tương ứng với một lần lấy mẫu của Monitor.
+ */
+public interface IForegroundSource {
+    /**
+     * Ghi cửa sổ đang hoạt động vào {@code sample}; bộ đệm thuộc về bên gọi và được dùng lại.
+     *
+     * @return false nếu không xác định được cửa sổ tiền cảnh
+     */
+    boolean poll(ForegroundSample sample);
+
+    String getName();
+
+    /**
+     * Đăng ký nhận sự kiện mỗi khi cửa sổ tiền cảnh thay đổi. Sự kiện có thể được gọi
+     * từ luồng của nguồn; {@link #poll(ForegroundSample)} khi đó chỉ còn là cơ chế dự phòng.
+     *
+     * @return false nếu nguồn không hỗ trợ; khi đó Monitor chỉ dựa vào lấy mẫu định kỳ
+     */
+    default boolean setFocusEventListener(Consumer<FocusChangedEvent> listener) {
+        return false;
+    }
+
+    /**
+     * @return bộ đệm đường dẫn tệp thực thi của nguồn, cần nhận thay đổi của bảng tiến trình để bỏ
+     *         pid đã thoát; null nếu nguồn không giữ bộ đệm
+     */
+    default Consumer<ProcessDelta> getProcessDeltaListener() {
+        return null;
+    }
+
+    default void close() {
+    }
+}
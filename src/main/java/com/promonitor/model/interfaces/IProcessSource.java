@@ -0,0 +1,25 @@
+package com.promonitor.model.interfaces;
+
+import com.promonitor.model.platform.ProcessInfo;
+
+/**
+ * Liệt kê tiến trình ngay trong JVM, không tạo tiến trình con như ps hay tasklist.
+ */
+public interface IProcessSource {
+    /**
+     * Nhận kết quả duyệt bảng tiến trình. Nguồn hỏi {@link #wants(int, long)} trước với phần
+     * thông tin rẻ nhất, và chỉ đọc đầy đủ những tiến trình được yêu cầu.
+     */
+    interface Visitor {
+        boolean wants(int processId, long startTimeMillis);
+
+        void accept(ProcessInfo process);
+    }
+
+    /**
+     * Duyệt một lượt toàn bộ tiến trình đang chạy. Không an toàn khi gọi đồng thời.
+     */
+    void scan(Visitor visitor);
+
+    String getName();
+}
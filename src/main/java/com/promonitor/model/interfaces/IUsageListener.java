@@ -0,0 +1,14 @@
+package com.promonitor.model.interfaces;
+
+import com.promonitor.model.Application;
+
+/**
+ * Nhận các khoảng sử dụng đã khép lại từ Monitor. Được gọi trên luồng lấy mẫu nên phải trả về nhanh.
+ */
+public interface IUsageListener {
+    /**
+     * @param startEpochNanos thời điểm bắt đầu theo epoch (ns)
+     * @param endEpochNanos   thời điểm kết thúc theo epoch (ns)
+     */
+    void onIntervalClosed(Application application, long startEpochNanos, long endEpochNanos);
+}
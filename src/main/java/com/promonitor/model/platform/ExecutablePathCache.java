@@ -0,0 +1,49 @@
+package com.promonitor.model.platform;
+
+import com.promonitor.util.IntObjectHashMap;
+
+import java.util.function.Consumer;
+
+/**
+ * Bộ đệm pid -> đường dẫn tệp thực thi của các nguồn tiền cảnh, được cập nhật theo thay đổi của
+ * bảng tiến trình: tiến trình mới được điền sẵn đường dẫn, tiến trình đã thoát (kể cả pid bị cấp
+ * lại) bị bỏ khỏi bộ đệm. Chỉ khi pid chưa có trong bộ đệm, nguồn mới phải tự tra cứu.
+ * Luồng lấy mẫu, luồng hook và luồng phát của danh mục tiến trình cùng truy cập nên mọi phương
+ * thức đều được đồng bộ.
+ */
+public final class ExecutablePathCache implements Consumer<ProcessDelta> {
+    // Lưới an toàn khi không ai làm mới danh mục tiến trình và pid được cấp lại mà không có thay đổi nào
+    private static final int MAX_CACHED_PATHS = 8192;
+
+    private final IntObjectHashMap<String> paths = new IntObjectHashMap<>();
+
+    @Override
+    public synchronized void accept(ProcessDelta delta) {
+        for (ProcessInfo process : delta.getExited()) {
+            paths.remove(process.getProcessId());
+        }
+        for (ProcessInfo process : delta.getStarted()) {
+            if (!process.getExecutablePath().isEmpty()) {
+                put(process.getProcessId(), process.getExecutablePath());
+            }
+        }
+    }
+
+    /**
+     * @return đường dẫn đã biết của pid, hoặc null nếu phải tra cứu
+     */
+    public synchronized String get(int processId) {
+        return paths.get(processId);
+    }
+
+    public synchronized void put(int processId, String path) {
+        if (paths.size() >= MAX_CACHED_PATHS && !paths.containsKey(processId)) {
+            paths.clear();
+        }
+        paths.put(processId, path);
+    }
+
+    public synchronized int size() {
+        return paths.size();
+    }
+}
@@ -0,0 +1,53 @@
+package com.promonitor.model.platform;
+
+/**
+ * Sự kiện đổi cửa sổ tiền cảnh do nguồn đẩy tới Monitor.
+ * Mốc thời gian thuộc cùng miền với {@link System#nanoTime()} (hoặc đồng hồ được tiêm vào Monitor).
+ */
+public final class FocusChangedEvent {
+    private final long timestampNanos;
+    private final long windowId;
+    private final int processId;
+    private final String title;
+    private final String executablePath;
+
+    public FocusChangedEvent(long timestampNanos, long windowId, int processId,
+                             String title, String executablePath) {
+        this.timestampNanos = timestampNanos;
+        this.windowId = windowId;
+        this.processId = processId;
+        this.title = title != null ? title : "";
+        this.executablePath = executablePath != null ? executablePath : "";
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    public long getWindowId() {
+        return windowId;
+    }
+
+    public int getProcessId() {
+        return processId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getExecutablePath() {
+        return executablePath;
+    }
+
+    public void copyTo(ForegroundSample sample) {
+        sample.setWindow(windowId, processId);
+        sample.setTitle(title);
+        sample.setExecutablePath(executablePath);
+    }
+
+    @Override
+    public String toString() {
+        return title + " (PID: " + processId + ", HWND: " + windowId + ") @" + timestampNanos;
+    }
+}
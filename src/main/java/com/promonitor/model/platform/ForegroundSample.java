@@ -0,0 +1,116 @@
+package com.promonitor.model.platform;
+
+/**
+ * Bộ đệm mẫu cửa sổ tiền cảnh dùng lại qua mọi lần lấy mẫu, để nhịp lấy mẫu
+ * không phải cấp phát đối tượng khi cửa sổ không đổi.
+ */
+public final class ForegroundSample {
+    public static final int MAX_TITLE_LENGTH = 512;
+
+    private final char[] title = new char[MAX_TITLE_LENGTH];
+    private int titleLength;
+    private int titleHash;
+    private long windowId;
+    private int processId;
+    private String executablePath = "";
+
+    public void setWindow(long windowId, int processId) {
+        this.windowId = windowId;
+        this.processId = processId;
+    }
+
+    public void setExecutablePath(String executablePath) {
+        this.executablePath = executablePath != null ? executablePath : "";
+    }
+
+    /**
+     * Bộ đệm để nguồn ghi trực tiếp tiêu đề vào, sau đó gọi {@link #setTitleLength(int)}.
+     */
+    public char[] titleBuffer() {
+        return title;
+    }
+
+    public void setTitleLength(int length) {
+        int end = Math.max(0, Math.min(length, title.length));
+        int start = 0;
+        while (start < end && title[start] <= ' ') {
+            start++;
+        }
+        while (end > start && title[end - 1] <= ' ') {
+            end--;
+        }
+        if (start > 0) {
+            System.arraycopy(title, start, title, 0, end - start);
+        }
+        titleLength = end - start;
+
+        int h = 0;
+        for (int i = 0; i < titleLength; i++) {
+            h = 31 * h + title[i];
+        }
+        titleHash = h;
+    }
+
+    public void setTitle(char[] source, int length) {
+        int n = Math.min(length, title.length);
+        System.arraycopy(source, 0, title, 0, n);
+        setTitleLength(n);
+    }
+
+    public void setTitle(String source) {
+        int n = Math.min(source.length(), title.length);
+        source.getChars(0, n, title, 0);
+        setTitleLength(n);
+    }
+
+    public boolean sameWindowAs(ForegroundSample other) {
+        if (windowId != other.windowId || processId != other.processId
+                || titleHash != other.titleHash || titleLength != other.titleLength) {
+            return false;
+        }
+        for (int i = 0; i < titleLength; i++) {
+            if (title[i] != other.title[i]) {
+                return false;
+            }
+        }
+        return executablePath.equals(other.executablePath);
+    }
+
+    public void copyFrom(ForegroundSample other) {
+        System.arraycopy(other.title, 0, title, 0, other.titleLength);
+        titleLength = other.titleLength;
+        titleHash = other.titleHash;
+        windowId = other.windowId;
+        processId = other.processId;
+        executablePath = other.executablePath;
+    }
+
+    public String titleAsString() {
+        return new String(title, 0, titleLength);
+    }
+
+    public int getTitleLength() {
+        return titleLength;
+    }
+
+    public int getTitleHash() {
+        return titleHash;
+    }
+
+    public long getWindowId() {
+        return windowId;
+    }
+
+    public int getProcessId() {
+        return processId;
+    }
+
+    public String getExecutablePath() {
+        return executablePath;
+    }
+
+    @Override
+    public String toString() {
+        return titleAsString() + " (PID: " + processId + ", HWND: " + windowId + ")";
+    }
+}
@@ -0,0 +1,30 @@
+package com.promonitor.model.platform;
+
+import com.promonitor.model.interfaces.IForegroundSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public final class ForegroundSources {
+    private static final Logger logger = LoggerFactory.getLogger(ForegroundSources.class);
+
+    private ForegroundSources() {
+    }
+
+    public static IForegroundSource forCurrentPlatform() {
+        String os = System.getProperty("os.name").toLowerCase();
+
+        if (os.contains("win")) {
+            return new Win32ForegroundSource();
+        } else if (os.contains("nux")) {
+            try {
+                return new LinuxForegroundSource();
+            } catch (IllegalStateException | UnsatisfiedLinkError | NoClassDefFoundError e) {
+                logger.warn("Không dùng được X11 để xác định cửa sổ tiền cảnh: {}", e.getMessage());
+                return new ScriptedForegroundSource();
+            }
+        }
+
+        logger.warn("Hệ điều hành không được hỗ trợ: {}", os);
+        return new ScriptedForegroundSource();
+    }
+}
@@ -0,0 +1,176 @@
+package com.promonitor.model.platform;
+
+import com.promonitor.model.interfaces.IForegroundSource;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.unix.X11;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.NativeLongByReference;
+import com.sun.jna.ptr.PointerByReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+/**
+ * Xác định cửa sổ tiền cảnh trên Linux qua X11 (JNA): đọc {@code _NET_ACTIVE_WINDOW} trên cửa sổ gốc,
+ * rồi {@code _NET_WM_PID} và {@code _NET_WM_NAME} của cửa sổ đó; đường dẫn tệp thực thi lấy từ
+ * {@code /proc/<pid>/exe}. Cần trình quản lý cửa sổ theo chuẩn EWMH; phiên Wayland thuần chỉ thấy
+ * được các cửa sổ chạy qua XWayland.
+ */
+public class LinuxForegroundSource implements IForegroundSource {
+    private static final Logger logger = LoggerFactory.getLogger(LinuxForegroundSource.class);
+
+    private static final long MAX_TITLE_WORDS = ForegroundSample.MAX_TITLE_LENGTH;
+
+    // Trình xử lý lỗi mặc định của Xlib kết thúc cả tiến trình, ví dụ khi cửa sổ đóng giữa hai lần
+    // đọc (BadWindow). Giữ tham chiếu tĩnh để JNA không thu gom callback.
+    private static final X11.XErrorHandler IGNORE_ERRORS = (display, event) -> 0;
+
+    private final X11 x11;
+    private final X11.Display display;
+    private final X11.Window root;
+    private final X11.Atom activeWindowAtom;
+    private final X11.Atom pidAtom;
+    private final X11.Atom nameAtom;
+    private final X11.Atom utf8StringAtom;
+
+    // Chỉ được dùng từ luồng lấy mẫu nên có thể tái sử dụng giữa các lần gọi
+    private final X11.AtomByReference actualType = new X11.AtomByReference();
+    private final IntByReference actualFormat = new IntByReference();
+    private final NativeLongByReference itemCount = new NativeLongByReference();
+    private final NativeLongByReference bytesAfter = new NativeLongByReference();
+    private final PointerByReference property = new PointerByReference();
+    private final ExecutablePathCache executablePaths = new ExecutablePathCache();
+    private boolean closed;
+
+    /**
+     * @throws IllegalStateException nếu không kết nối được X server (biến DISPLAY chưa đặt)
+     */
+    public LinuxForegroundSource() {
+        this.x11 = X11.INSTANCE;
+        x11.XSetErrorHandler(IGNORE_ERRORS);
+        this.display = x11.XOpenDisplay(null);
+        if (display == null) {
+            throw new IllegalStateException("Không kết nối được X server");
+        }
+        this.root = x11.XDefaultRootWindow(display);
+        this.activeWindowAtom = x11.XInternAtom(display, "_NET_ACTIVE_WINDOW", false);
+        this.pidAtom = x11.XInternAtom(display, "_NET_WM_PID", false);
+        this.nameAtom = x11.XInternAtom(display, "_NET_WM_NAME", false);
+        this.utf8StringAtom = x11.XInternAtom(display, "UTF8_STRING", false);
+    }
+
+    @Override
+    public synchronized boolean poll(ForegroundSample sample) {
+        if (closed) {
+            return false;
+        }
+        long window = readNumber(root, activeWindowAtom, X11.XA_WINDOW);
+        if (window <= 0) {
+            return false;
+        }
+        X11.Window activeWindow = new X11.Window(window);
+
+        int processId = (int) Math.max(0, readNumber(activeWindow, pidAtom, X11.XA_CARDINAL));
+        String title = readString(activeWindow, nameAtom, utf8StringAtom);
+        if (title == null) {
+            title = readString(activeWindow, X11.XA_WM_NAME, X11.XA_STRING);
+        }
+
+        sample.setWindow(window, processId);
+        sample.setExecutablePath(processId > 0 ? resolveExecutablePath(processId) : "");
+        sample.setTitle(title != null ? title : "");
+        return true;
+    }
+
+    /**
+     * Đọc phần tử đầu tiên của một thuộc tính dạng 32 bit; Xlib trả mỗi phần tử thành một long của C.
+     *
+     * @return -1 nếu cửa sổ không có thuộc tính này
+     */
+    private long readNumber(X11.Window window, X11.Atom name, X11.Atom type) {
+        Pointer data = readProperty(window, name, type, 1);
+        if (data == null) {
+            return -1;
+        }
+        try {
+            if (actualFormat.getValue() != 32 || itemCount.getValue().longValue() < 1) {
+                return -1;
+            }
+            return data.getNativeLong(0).longValue();
+        } finally {
+            x11.XFree(data);
+        }
+    }
+
+    private String readString(X11.Window window, X11.Atom name, X11.Atom type) {
+        Pointer data = readProperty(window, name, type, MAX_TITLE_WORDS);
+        if (data == null) {
+            return null;
+        }
+        try {
+            long length = itemCount.getValue().longValue();
+            if (actualFormat.getValue() != 8 || length <= 0) {
+                return null;
+            }
+            return new String(data.getByteArray(0, (int) length), StandardCharsets.UTF_8);
+        } finally {
+            x11.XFree(data);
+        }
+    }
+
+    private Pointer readProperty(X11.Window window, X11.Atom name, X11.Atom type, long maxWords) {
+        int status = x11.XGetWindowProperty(display, window, name, new NativeLong(0), new NativeLong(maxWords),
+                false, type, actualType, actualFormat, itemCount, bytesAfter, property);
+        if (status != X11.Success) {
+            return null;
+        }
+        Pointer data = property.getValue();
+        if (data != null && actualType.getValue().longValue() == X11.None) {
+            x11.XFree(data);
+            return null;
+        }
+        return data;
+    }
+
+    private String resolveExecutablePath(int processId) {
+        String cached = executablePaths.get(processId);
+        if (cached != null) {
+            return cached;
+        }
+
+        String path;
+        try {
+            path = Files.readSymbolicLink(Paths.get("/proc", String.valueOf(processId), "exe")).toString();
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            path = "";
+        }
+        executablePaths.put(processId, path);
+        return path;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        x11.XCloseDisplay(display);
+        logger.debug("Đã đóng kết nối X server");
+    }
+
+    @Override
+    public Consumer<ProcessDelta> getProcessDeltaListener() {
+        return executablePaths;
+    }
+
+    @Override
+    public String getName() {
+        return "Linux X11 (_NET_ACTIVE_WINDOW)";
+    }
+}
@@ -0,0 +1,44 @@
+package com.promonitor.model.platform;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thay đổi của bảng tiến trình giữa hai lần quét liên tiếp. Một pid được dùng lại xuất hiện
+ * đồng thời trong cả hai danh sách với thời điểm bắt đầu khác nhau.
+ */
+public final class ProcessDelta {
+    private final long sequence;
+    private final List<ProcessInfo> started;
+    private final List<ProcessInfo> exited;
+
+    public ProcessDelta(long sequence, List<ProcessInfo> started, List<ProcessInfo> exited) {
+        this.sequence = sequence;
+        this.started = Collections.unmodifiableList(started);
+        this.exited = Collections.unmodifiableList(exited);
+    }
+
+    /**
+     * @return số thứ tự lần quét tạo ra thay đổi này
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public List<ProcessInfo> getStarted() {
+        return started;
+    }
+
+    public List<ProcessInfo> getExited() {
+        return exited;
+    }
+
+    public boolean isEmpty() {
+        return started.isEmpty() && exited.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " +" + started.size() + " -" + exited.size();
+    }
+}
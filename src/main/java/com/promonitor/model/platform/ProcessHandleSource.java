@@ -0,0 +1,37 @@
+package com.promonitor.model.platform;
+
+import com.promonitor.model.interfaces.IProcessSource;
+
+import java.time.Instant;
+
+/**
+ * Liệt kê tiến trình qua {@link ProcessHandle#allProcesses()}, dùng cho các hệ điều hành không có /proc.
+ */
+public class ProcessHandleSource implements IProcessSource {
+
+    @Override
+    public synchronized void scan(Visitor visitor) {
+        ProcessHandle.allProcesses().forEach(handle -> {
+            ProcessHandle.Info info = handle.info();
+            int pid = (int) handle.pid();
+            long startMillis = info.startInstant().map(Instant::toEpochMilli).orElse(0L);
+            if (!visitor.wants(pid, startMillis)) {
+                return;
+            }
+
+            String executable = info.command().orElse("");
+            int parent = handle.parent().map(p -> (int) p.pid()).orElse(0);
+            visitor.accept(new ProcessInfo(pid, parent, startMillis, baseName(executable), executable));
+        });
+    }
+
+    private static String baseName(String path) {
+        int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        return slash >= 0 ? path.substring(slash + 1) : path;
+    }
+
+    @Override
+    public String getName() {
+        return "ProcessHandle";
+    }
+}
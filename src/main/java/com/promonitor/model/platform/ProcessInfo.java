@@ -0,0 +1,65 @@
+package com.promonitor.model.platform;
+
+import java.util.Objects;
+
+/**
+ * Một tiến trình trong bảng tiến trình. Cặp (pid, thời điểm bắt đầu) định danh tiến trình
+ * kể cả khi hệ điều hành dùng lại pid.
+ */
+public final class ProcessInfo {
+    private final int processId;
+    private final int parentProcessId;
+    private final long startTimeMillis;
+    private final String command;
+    private final String executablePath;
+
+    public ProcessInfo(int processId, int parentProcessId, long startTimeMillis,
+                       String command, String executablePath) {
+        this.processId = processId;
+        this.parentProcessId = parentProcessId;
+        this.startTimeMillis = startTimeMillis;
+        this.command = command != null ? command : "";
+        this.executablePath = executablePath != null ? executablePath : "";
+    }
+
+    public int getProcessId() {
+        return processId;
+    }
+
+    public int getParentProcessId() {
+        return parentProcessId;
+    }
+
+    /**
+     * @return thời điểm bắt đầu theo epoch (ms), 0 nếu không xác định được
+     */
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getExecutablePath() {
+        return executablePath;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProcessInfo that = (ProcessInfo) o;
+        return processId == that.processId && startTimeMillis == that.startTimeMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(processId, startTimeMillis);
+    }
+
+    @Override
+    public String toString() {
+        return command + " (PID: " + processId + ", PPID: " + parentProcessId + ")";
+    }
+}
@@ -0,0 +1,20 @@
+package com.promonitor.model.platform;
+
+import com.promonitor.model.interfaces.IProcessSource;
+
+import java.io.File;
+
+public final class ProcessSources {
+
+    private ProcessSources() {
+    }
+
+    public static IProcessSource forCurrentPlatform() {
+        String os = System.getProperty("os.name").toLowerCase();
+
+        if (os.contains("nux") && new File("/proc/self/stat").canRead()) {
+            return new ProcfsProcessSource();
+        }
+        return new ProcessHandleSource();
+    }
+}
@@ -0,0 +1,176 @@
+package com.promonitor.model.platform;
+
+import com.promonitor.model.interfaces.IProcessSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Liệt kê tiến trình trên Linux bằng cách đọc trực tiếp /proc/[pid]/stat vào một bộ đệm byte
+ * dùng lại, phân tích các trường ngay trên mảng byte. Tên lệnh và đường dẫn thực thi chỉ được
+ * đọc cho những tiến trình mà bên duyệt yêu cầu.
+ */
+public class ProcfsProcessSource implements IProcessSource {
+    private static final Logger logger = LoggerFactory.getLogger(ProcfsProcessSource.class);
+
+    private static final String PROC = "/proc";
+    // USER_HZ cố định là 100 trên các nhân Linux phổ biến
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+    private static final int PPID_FIELD = 4;
+    private static final int START_TIME_FIELD = 22;
+
+    private final byte[] buffer = new byte[4096];
+    private final StringBuilder path = new StringBuilder(32);
+    private final long bootTimeMillis;
+
+    public ProcfsProcessSource() {
+        this.bootTimeMillis = readBootTimeMillis();
+    }
+
+    @Override
+    public synchronized void scan(Visitor visitor) {
+        String[] entries = new File(PROC).list();
+        if (entries == null) {
+            return;
+        }
+
+        for (String entry : entries) {
+            int pid = parsePid(entry);
+            if (pid <= 0) {
+                continue;
+            }
+            // Tiến trình có thể kết thúc giữa lúc liệt kê và lúc đọc
+            int length = read(pid, "/stat");
+            if (length <= 0) {
+                continue;
+            }
+
+            int open = indexOf((byte) '(', length);
+            int close = lastIndexOf((byte) ')', length);
+            if (open < 0 || close < open) {
+                continue;
+            }
+
+            long startTicks = parseField(close, length, START_TIME_FIELD);
+            long startMillis = startTicks >= 0
+                    ? bootTimeMillis + startTicks * 1000 / CLOCK_TICKS_PER_SECOND : 0;
+            if (!visitor.wants(pid, startMillis)) {
+                continue;
+            }
+
+            int parent = (int) parseField(close, length, PPID_FIELD);
+            String command = new String(buffer, open + 1, close - open - 1, StandardCharsets.UTF_8);
+            visitor.accept(new ProcessInfo(pid, Math.max(parent, 0), startMillis, command, readExecutable(pid)));
+        }
+    }
+
+    private static int parsePid(String entry) {
+        int pid = 0;
+        for (int i = 0; i < entry.length(); i++) {
+            char c = entry.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            pid = pid * 10 + (c - '0');
+        }
+        return pid;
+    }
+
+    private int read(int pid, String file) {
+        path.setLength(0);
+        path.append(PROC).append('/').append(pid).append(file);
+        try (FileInputStream in = new FileInputStream(path.toString())) {
+            int total = 0;
+            int n;
+            while (total < buffer.length && (n = in.read(buffer, total, buffer.length - total)) > 0) {
+                total += n;
+            }
+            return total;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private String readExecutable(int pid) {
+        path.setLength(0);
+        path.append(PROC).append('/').append(pid).append("/exe");
+        try {
+            return Files.readSymbolicLink(Paths.get(path.toString())).toString();
+        } catch (IOException | SecurityException e) {
+            // Tiến trình của người dùng khác hoặc luồng nhân
+            return "";
+        }
+    }
+
+    private int indexOf(byte b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lastIndexOf(byte b, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Đọc trường số thứ {@code field} (đánh số từ 1 như trong proc(5)). Tên lệnh có thể chứa
+     * khoảng trắng nên các trường được đếm từ dấu ')' cuối cùng, nơi trường 3 bắt đầu.
+     */
+    private long parseField(int close, int length, int field) {
+        int pos = close + 2;
+        for (int current = 3; current < field; current++) {
+            while (pos < length && buffer[pos] != ' ') {
+                pos++;
+            }
+            pos++;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+
+        boolean negative = buffer[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        long value = 0;
+        while (pos < length && buffer[pos] >= '0' && buffer[pos] <= '9') {
+            value = value * 10 + (buffer[pos] - '0');
+            pos++;
+        }
+        return negative ? -value : value;
+    }
+
+    private static long readBootTimeMillis() {
+        try {
+            List<String> lines = Files.readAllLines(Paths.get(PROC, "stat"), StandardCharsets.US_ASCII);
+            for (String line : lines) {
+                if (line.startsWith("btime ")) {
+                    return Long.parseLong(line.substring(6).trim()) * 1000;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Không đọc được thời điểm khởi động từ /proc/stat", e);
+        }
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return "Linux /proc";
+    }
+}
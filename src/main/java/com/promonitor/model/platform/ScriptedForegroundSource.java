@@ -0,0 +1,66 @@
+package com.promonitor.model.platform;
+
+import com.promonitor.model.interfaces.IForegroundSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Nguồn giả lập phát lại một kịch bản cửa sổ cố định theo vòng lặp,
+ * dùng để chạy Monitor không cần giao diện và đo thông lượng lấy mẫu.
+ */
+public class ScriptedForegroundSource implements IForegroundSource {
+    private final List<ForegroundSample> script = new ArrayList<>();
+    private final List<Integer> repeats = new ArrayList<>();
+
+    private int position;
+    private int remaining;
+    private long samples;
+
+    public ScriptedForegroundSource add(long windowId, int processId, String title,
+                                        String executablePath, int samples) {
+        if (samples <= 0) {
+            throw new IllegalArgumentException("Số lần lấy mẫu phải lớn hơn 0");
+        }
+        ForegroundSample entry = new ForegroundSample();
+        entry.setWindow(windowId, processId);
+        entry.setTitle(title);
+        entry.setExecutablePath(executablePath);
+
+        script.add(entry);
+        repeats.add(samples);
+        if (script.size() == 1) {
+            remaining = samples;
+        }
+        return this;
+    }
+
+    public ScriptedForegroundSource add(long windowId, int processId, String title, int samples) {
+        return add(windowId, processId, title, "", samples);
+    }
+
+    @Override
+    public boolean poll(ForegroundSample sample) {
+        if (script.isEmpty()) {
+            return false;
+        }
+
+        if (remaining == 0) {
+            position = (position + 1) % script.size();
+            remaining = repeats.get(position);
+        }
+        remaining--;
+        samples++;
+        sample.copyFrom(script.get(position));
+        return true;
+    }
+
+    public long getSampleCount() {
+        return samples;
+    }
+
+    @Override
+    public String getName() {
+        return "Kịch bản (" + script.size() + " cửa sổ)";
+    }
+}
@@ -0,0 +1,117 @@
+package com.promonitor.model.platform;
+
+import com.promonitor.model.interfaces.IClock;
+import com.promonitor.model.interfaces.IForegroundSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Nguồn sự kiện giả lập trong tiến trình: một luồng nền phát lại kịch bản cửa sổ
+ * với thời gian lưu lại cho trước và đẩy {@link FocusChangedEvent} tới Monitor.
+ * {@link #emit} cho phép đẩy sự kiện trực tiếp từ luồng gọi để đo thông lượng.
+ */
+public class SimulatedFocusEventSource implements IForegroundSource {
+    private final IClock clock;
+    private final List<FocusChangedEvent> script = new ArrayList<>();
+    private final List<Long> dwellMillis = new ArrayList<>();
+
+    private volatile Consumer<FocusChangedEvent> listener;
+    private volatile FocusChangedEvent current;
+    private volatile boolean running;
+    private Thread player;
+    private long emitted;
+
+    public SimulatedFocusEventSource() {
+        this(IClock.SYSTEM);
+    }
+
+    public SimulatedFocusEventSource(IClock clock) {
+        this.clock = clock;
+    }
+
+    public SimulatedFocusEventSource add(long windowId, int processId, String title,
+                                         String executablePath, long dwellMillis) {
+        if (dwellMillis <= 0) {
+            throw new IllegalArgumentException("Thời gian lưu lại phải lớn hơn 0");
+        }
+        script.add(new FocusChangedEvent(0, windowId, processId, title, executablePath));
+        this.dwellMillis.add(dwellMillis);
+        return this;
+    }
+
+    /**
+     * Đẩy ngay một sự kiện đổi cửa sổ, đóng dấu thời gian bằng đồng hồ của nguồn.
+     */
+    public void emit(long windowId, int processId, String title, String executablePath) {
+        FocusChangedEvent event = new FocusChangedEvent(clock.nanoTime(), windowId, processId, title, executablePath);
+        current = event;
+        emitted++;
+
+        Consumer<FocusChangedEvent> target = listener;
+        if (target != null) {
+            target.accept(event);
+        }
+    }
+
+    public synchronized void start() {
+        if (running || script.isEmpty()) {
+            return;
+        }
+        running = true;
+        player = new Thread(this::play, "promonitor-simulated-focus");
+        player.setDaemon(true);
+        player.start();
+    }
+
+    private void play() {
+        int position = 0;
+        while (running) {
+            FocusChangedEvent entry = script.get(position);
+            emit(entry.getWindowId(), entry.getProcessId(), entry.getTitle(), entry.getExecutablePath());
+            try {
+                TimeUnit.MILLISECONDS.sleep(dwellMillis.get(position));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            position = (position + 1) % script.size();
+        }
+    }
+
+    @Override
+    public boolean poll(ForegroundSample sample) {
+        FocusChangedEvent event = current;
+        if (event == null) {
+            return false;
+        }
+        event.copyTo(sample);
+        return true;
+    }
+
+    @Override
+    public boolean setFocusEventListener(Consumer<FocusChangedEvent> listener) {
+        this.listener = listener;
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (player != null) {
+            player.interrupt();
+            player = null;
+        }
+    }
+
+    public long getEmittedCount() {
+        return emitted;
+    }
+
+    @Override
+    public String getName() {
+        return "Sự kiện giả lập (" + script.size() + " cửa sổ)";
+    }
+}
@@ -0,0 +1,199 @@
+package com.promonitor.model.platform;
+
+import com.promonitor.model.interfaces.IForegroundSource;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.win32.Kernel32;
+import com.sun.jna.platform.win32.User32;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.platform.win32.WinDef.HWND;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.platform.win32.WinUser;
+import com.sun.jna.ptr.IntByReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+public class Win32ForegroundSource implements IForegroundSource {
+    private static final Logger logger = LoggerFactory.getLogger(Win32ForegroundSource.class);
+
+    private static final int EVENT_SYSTEM_FOREGROUND = 0x0003;
+    private static final int WINEVENT_OUTOFCONTEXT = 0x0000;
+    private static final int MAX_PATH_LENGTH = 1024;
+    private static final long HOOK_REGISTRATION_TIMEOUT_MS = 2000;
+
+    private final User32 user32;
+    private final Kernel32 kernel32;
+
+    // Chỉ được dùng từ luồng lấy mẫu nên có thể tái sử dụng giữa các lần gọi
+    private final IntByReference processIdRef = new IntByReference();
+    private final IntByReference pathLengthRef = new IntByReference();
+    private final char[] pathBuffer = new char[MAX_PATH_LENGTH];
+    private final ExecutablePathCache executablePaths = new ExecutablePathCache();
+
+    // Giữ tham chiếu mạnh tới callback để JNA không bị thu gom khi hook còn hoạt động
+    private WinUser.WinEventProc foregroundHook;
+    private Thread hookThread;
+    private volatile int hookThreadId;
+
+    public Win32ForegroundSource() {
+        this.user32 = User32.INSTANCE;
+        this.kernel32 = Kernel32.INSTANCE;
+    }
+
+    @Override
+    public boolean poll(ForegroundSample sample) {
+        HWND activeWindow = user32.GetForegroundWindow();
+        if (activeWindow == null) {
+            return false;
+        }
+
+        user32.GetWindowThreadProcessId(activeWindow, processIdRef);
+        int processId = processIdRef.getValue();
+        sample.setWindow(Pointer.nativeValue(activeWindow.getPointer()), processId);
+        sample.setExecutablePath(resolveExecutablePath(processId));
+
+        char[] buffer = sample.titleBuffer();
+        int length = user32.GetWindowText(activeWindow, buffer, buffer.length);
+        sample.setTitleLength(length);
+        return true;
+    }
+
+    private String resolveExecutablePath(int processId) {
+        String cached = executablePaths.get(processId);
+        if (cached != null) {
+            return cached;
+        }
+
+        String path = queryExecutablePath(processId, pathBuffer, pathLengthRef);
+        executablePaths.put(processId, path);
+        return path;
+    }
+
+    @Override
+    public synchronized boolean setFocusEventListener(Consumer<FocusChangedEvent> listener) {
+        if (hookThread != null) {
+            return true;
+        }
+
+        foregroundHook = (hook, event, hwnd, idObject, idChild, eventThread, eventTime) -> {
+            long timestamp = System.nanoTime();
+            if (hwnd != null) {
+                listener.accept(describe(hwnd, timestamp));
+            }
+        };
+        CompletableFuture<Boolean> registered = new CompletableFuture<>();
+        hookThread = new Thread(() -> runHookLoop(registered), "promonitor-foreground-hook");
+        hookThread.setDaemon(true);
+        hookThread.start();
+
+        // Chờ hook thực sự được đăng ký: nếu thất bại, Monitor phải tiếp tục lấy mẫu nhanh thay vì chờ sự kiện
+        boolean hooked;
+        try {
+            hooked = registered.get(HOOK_REGISTRATION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            hooked = false;
+        } catch (ExecutionException | TimeoutException e) {
+            hooked = false;
+        }
+        // Hook đăng ký muộn sau khi đã hết thời gian chờ sẽ tự gỡ, xem runHookLoop
+        registered.complete(false);
+        if (!hooked) {
+            logger.warn("Không thể đăng ký hook đổi cửa sổ tiền cảnh, chuyển sang chỉ lấy mẫu định kỳ");
+            close();
+        }
+        return hooked;
+    }
+
+    // Hook ngoài tiến trình chỉ gửi sự kiện tới luồng đã đăng ký nó, nên luồng này phải tự bơm thông điệp
+    private void runHookLoop(CompletableFuture<Boolean> registered) {
+        WinNT.HANDLE hook;
+        try {
+            hookThreadId = kernel32.GetCurrentThreadId();
+            hook = user32.SetWinEventHook(EVENT_SYSTEM_FOREGROUND, EVENT_SYSTEM_FOREGROUND,
+                    null, foregroundHook, 0, 0, WINEVENT_OUTOFCONTEXT);
+        } catch (RuntimeException | Error e) {
+            registered.completeExceptionally(e);
+            throw e;
+        }
+        if (hook == null) {
+            registered.complete(false);
+            return;
+        }
+        if (!registered.complete(true)) {
+            // Bên đăng ký đã hết thời gian chờ và coi như không có hook
+            user32.UnhookWinEvent(hook);
+            return;
+        }
+
+        try {
+            WinUser.MSG msg = new WinUser.MSG();
+            while (user32.GetMessage(msg, null, 0, 0) > 0) {
+                user32.TranslateMessage(msg);
+                user32.DispatchMessage(msg);
+            }
+        } finally {
+            user32.UnhookWinEvent(hook);
+        }
+    }
+
+    private String queryExecutablePath(int processId) {
+        String cached = executablePaths.get(processId);
+        if (cached != null) {
+            return cached;
+        }
+        String path = queryExecutablePath(processId, new char[MAX_PATH_LENGTH], new IntByReference());
+        executablePaths.put(processId, path);
+        return path;
+    }
+
+    private String queryExecutablePath(int processId, char[] buffer, IntByReference length) {
+        WinNT.HANDLE process = kernel32.OpenProcess(WinNT.PROCESS_QUERY_LIMITED_INFORMATION, false, processId);
+        if (process == null) {
+            return "";
+        }
+        try {
+            length.setValue(buffer.length);
+            return kernel32.QueryFullProcessImageName(process, 0, buffer, length)
+                    ? Native.toString(buffer) : "";
+        } finally {
+            kernel32.CloseHandle(process);
+        }
+    }
+
+    // Chạy trên luồng hook nên dùng bộ đệm riêng, không đụng tới bộ đệm của luồng lấy mẫu
+    private FocusChangedEvent describe(HWND window, long timestamp) {
+        IntByReference processId = new IntByReference();
+        user32.GetWindowThreadProcessId(window, processId);
+
+        char[] title = new char[ForegroundSample.MAX_TITLE_LENGTH];
+        user32.GetWindowText(window, title, title.length);
+
+        return new FocusChangedEvent(timestamp, Pointer.nativeValue(window.getPointer()),
+                processId.getValue(), Native.toString(title).trim(), queryExecutablePath(processId.getValue()));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (hookThread != null && hookThreadId != 0) {
+            user32.PostThreadMessage(hookThreadId, WinUser.WM_QUIT, new WinDef.WPARAM(0), new WinDef.LPARAM(0));
+        }
+        hookThread = null;
+    }
+
+    @Override
+    public Consumer<ProcessDelta> getProcessDeltaListener() {
+        return executablePaths;
+    }
+
+    @Override
+    public String getName() {
+        return "Win32 User32";
+    }
+}
@@ -0,0 +1,206 @@
+package com.promonitor.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Máy Aho-Corasick: tìm mọi từ khóa xuất hiện trong một chuỗi chỉ với một lần duyệt,
+ * không phân biệt hoa thường. Thêm từ khóa bằng {@link #add} rồi gọi {@link #build()};
+ * sau khi dựng máy chỉ còn được đọc nên dùng chung giữa các luồng được.
+ */
+public class AhoCorasick<T> {
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    // Bảng chuyển (nút, ký tự) -> nút, địa chỉ mở, khóa 0 là ô trống
+    private long[] edgeKeys = new long[64];
+    private int[] edgeTargets = new int[64];
+    private int edgeCount;
+
+    // Cây tiền tố dạng con đầu/anh em kế để duyệt theo chiều rộng khi dựng
+    private int nodeCount = 1;
+    private int[] firstChild = filled(16);
+    private int[] nextSibling = filled(16);
+    private char[] nodeChar = new char[16];
+    private int[] fail = new int[16];
+    private int[] outputLink = filled(16);
+    private Object[][] outputs = new Object[16][];
+
+    private int keywordCount;
+    private boolean built;
+
+    public AhoCorasick<T> add(String keyword, T value) {
+        if (built) {
+            throw new IllegalStateException("Máy đã được dựng");
+        }
+        if (keyword.isEmpty()) {
+            throw new IllegalArgumentException("Từ khóa không được rỗng");
+        }
+
+        int node = ROOT;
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = Character.toLowerCase(keyword.charAt(i));
+            int next = transition(node, c);
+            if (next == NONE) {
+                next = newNode();
+                nodeChar[next] = c;
+                putEdge(node, c, next);
+                nextSibling[next] = firstChild[node];
+                firstChild[node] = next;
+            }
+            node = next;
+        }
+
+        Object[] values = outputs[node];
+        values = values == null ? new Object[1] : Arrays.copyOf(values, values.length + 1);
+        values[values.length - 1] = value;
+        outputs[node] = values;
+        keywordCount++;
+        return this;
+    }
+
+    public AhoCorasick<T> build() {
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+
+        for (int child = firstChild[ROOT]; child != NONE; child = nextSibling[child]) {
+            fail[child] = ROOT;
+            outputLink[child] = NONE;
+            queue[tail++] = child;
+        }
+
+        while (head < tail) {
+            int node = queue[head++];
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                char c = nodeChar[child];
+                int f = fail[node];
+                int target;
+                while ((target = transition(f, c)) == NONE && f != ROOT) {
+                    f = fail[f];
+                }
+                fail[child] = target != NONE ? target : ROOT;
+
+                int link = fail[child];
+                outputLink[child] = outputs[link] != null ? link : outputLink[link];
+                queue[tail++] = child;
+            }
+        }
+
+        built = true;
+        return this;
+    }
+
+    /**
+     * Gọi {@code action} cho mỗi lần xuất hiện của mỗi từ khóa trong {@code text};
+     * một giá trị có thể được trả về nhiều lần.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachMatch(CharSequence text, Consumer<? super T> action) {
+        if (!built) {
+            throw new IllegalStateException("Chưa dựng máy");
+        }
+
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = transition(state, c)) == NONE && state != ROOT) {
+                state = fail[state];
+            }
+            state = next != NONE ? next : ROOT;
+
+            for (int s = outputs[state] != null ? state : outputLink[state]; s != NONE; s = outputLink[s]) {
+                for (Object value : outputs[s]) {
+                    action.accept((T) value);
+                }
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return keywordCount == 0;
+    }
+
+    public int size() {
+        return keywordCount;
+    }
+
+    private int newNode() {
+        if (nodeCount == fail.length) {
+            int capacity = fail.length << 1;
+            firstChild = grow(firstChild, capacity);
+            nextSibling = grow(nextSibling, capacity);
+            outputLink = grow(outputLink, capacity);
+            nodeChar = Arrays.copyOf(nodeChar, capacity);
+            fail = Arrays.copyOf(fail, capacity);
+            outputs = Arrays.copyOf(outputs, capacity);
+        }
+        return nodeCount++;
+    }
+
+    private int transition(int node, char c) {
+        long key = edgeKey(node, c);
+        int mask = edgeKeys.length - 1;
+        for (int index = mix(key) & mask; edgeKeys[index] != 0; index = (index + 1) & mask) {
+            if (edgeKeys[index] == key) {
+                return edgeTargets[index];
+            }
+        }
+        return NONE;
+    }
+
+    private void putEdge(int node, char c, int target) {
+        if ((edgeCount + 1) * 2 > edgeKeys.length) {
+            rehash(edgeKeys.length << 1);
+        }
+        long key = edgeKey(node, c);
+        int mask = edgeKeys.length - 1;
+        int index = mix(key) & mask;
+        while (edgeKeys[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        edgeKeys[index] = key;
+        edgeTargets[index] = target;
+        edgeCount++;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = edgeKeys;
+        int[] oldTargets = edgeTargets;
+        edgeKeys = new long[capacity];
+        edgeTargets = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = mix(oldKeys[i]) & mask;
+                while (edgeKeys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                edgeKeys[index] = oldKeys[i];
+                edgeTargets[index] = oldTargets[i];
+            }
+        }
+    }
+
+    private static long edgeKey(int node, char c) {
+        return (((long) node << 16) | c) + 1;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int[] filled(int size) {
+        int[] array = new int[size];
+        Arrays.fill(array, NONE);
+        return array;
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        int[] grown = Arrays.copyOf(array, capacity);
+        Arrays.fill(grown, array.length, capacity, NONE);
+        return grown;
+    }
+}
@@ -0,0 +1,114 @@
+package com.promonitor.util;
+
+import java.util.Arrays;
+
+/**
+ * Chuỗi (chỉ số ô, giá trị) sắp tăng theo chỉ số ô, lưu trong hai mảng nguyên thủy.
+ * Dữ liệu thường tới theo thứ tự thời gian nên phần lớn lần cộng chỉ chạm ô cuối.
+ */
+public class BucketSeries {
+    private long[] buckets;
+    private long[] values;
+    private int size;
+
+    public BucketSeries() {
+        this(8);
+    }
+
+    public BucketSeries(int capacity) {
+        buckets = new long[Math.max(capacity, 1)];
+        values = new long[buckets.length];
+    }
+
+    public void add(long bucket, long value) {
+        if (size > 0 && buckets[size - 1] == bucket) {
+            values[size - 1] += value;
+            return;
+        }
+        if (size == 0 || buckets[size - 1] < bucket) {
+            ensureCapacity();
+            buckets[size] = bucket;
+            values[size] = value;
+            size++;
+            return;
+        }
+
+        int index = Arrays.binarySearch(buckets, 0, size, bucket);
+        if (index >= 0) {
+            values[index] += value;
+            return;
+        }
+        int insertAt = -index - 1;
+        ensureCapacity();
+        System.arraycopy(buckets, insertAt, buckets, insertAt + 1, size - insertAt);
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        buckets[insertAt] = bucket;
+        values[insertAt] = value;
+        size++;
+    }
+
+    /**
+     * @return tổng giá trị các ô trong [fromBucket, toBucket)
+     */
+    public long sum(long fromBucket, long toBucket) {
+        int index = lowerBound(fromBucket);
+        long total = 0;
+        while (index < size && buckets[index] < toBucket) {
+            total += values[index++];
+        }
+        return total;
+    }
+
+    /**
+     * Bỏ các ô có chỉ số nhỏ hơn {@code bucket}.
+     *
+     * @return số ô đã bỏ
+     */
+    public int removeBefore(long bucket) {
+        int cut = lowerBound(bucket);
+        if (cut == 0) {
+            return 0;
+        }
+        System.arraycopy(buckets, cut, buckets, 0, size - cut);
+        System.arraycopy(values, cut, values, 0, size - cut);
+        size -= cut;
+        return cut;
+    }
+
+    private int lowerBound(long bucket) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buckets[mid] < bucket) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity() {
+        if (size == buckets.length) {
+            buckets = Arrays.copyOf(buckets, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long bucketAt(int index) {
+        return buckets[index];
+    }
+
+    public long valueAt(int index) {
+        return values[index];
+    }
+}
@@ -0,0 +1,388 @@
+package com.promonitor.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Tệp lưu trữ dài hạn cho một ngày đã khép lại, tổ chức theo cột. Sau phần đầu là bốn khối:
+ * từ điển tên ứng dụng, cột id ứng dụng, cột mốc bắt đầu (tính từ đầu ngày) và cột thời lượng.
+ * Ba cột số được mã hóa delta với varint zig-zag, thời gian tính theo mili giây. Mỗi khối mang
+ * độ dài và CRC32C riêng, nên truy vấn tổng hợp có thể bỏ qua cột không cần mà không giải mã nó.
+ */
+public final class ColumnarDayFile {
+    public static final int MAGIC = 0x504D4331; // "PMC1"
+    public static final short VERSION = 1;
+    public static final String SUFFIX = ".pmc";
+
+    private static final long UNIT_NANOS = 1_000_000L;
+    private static final int HEADER_BYTES = 4 + 2 + 2 + 8 + 8 + 4 + 4;
+
+    public interface IntervalVisitor {
+        void visit(String appName, String executablePath, long startEpochNanos, long endEpochNanos);
+    }
+
+    private ColumnarDayFile() {
+    }
+
+    public static String fileName(LocalDate day) {
+        return day + SUFFIX;
+    }
+
+    /**
+     * Gom các khoảng của một ngày rồi ghi thành tệp cột. Khoảng phải đã được cắt theo ranh giới ngày.
+     */
+    public static final class Writer {
+        private final LocalDate day;
+        private final long dayStartEpochNanos;
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<String> executables = new ArrayList<>();
+        private int[] appIds = new int[64];
+        private long[] starts = new long[64];
+        private long[] durations = new long[64];
+        private int count;
+
+        public Writer(LocalDate day, long dayStartEpochNanos) {
+            this.day = day;
+            this.dayStartEpochNanos = dayStartEpochNanos;
+        }
+
+        public void add(String appName, String executablePath, long startEpochNanos, long endEpochNanos) {
+            long start = Math.floorDiv(startEpochNanos - dayStartEpochNanos, UNIT_NANOS);
+            long duration = Math.floorDiv(endEpochNanos - dayStartEpochNanos, UNIT_NANOS) - start;
+            if (duration <= 0) {
+                return;
+            }
+
+            Integer id = ids.get(appName);
+            if (id == null) {
+                id = names.size();
+                ids.put(appName, id);
+                names.add(appName);
+                executables.add(executablePath != null ? executablePath : "");
+            }
+            if (count == appIds.length) {
+                appIds = Arrays.copyOf(appIds, count * 2);
+                starts = Arrays.copyOf(starts, count * 2);
+                durations = Arrays.copyOf(durations, count * 2);
+            }
+            appIds[count] = id;
+            starts[count] = start;
+            durations[count] = duration;
+            count++;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Ghi ra tệp tạm, đẩy xuống đĩa rồi đổi tên nguyên tử thành {@code target}.
+         */
+        public void writeTo(Path target) throws IOException {
+            sortByStart();
+
+            VarintBuffer dictionary = new VarintBuffer();
+            for (int i = 0; i < names.size(); i++) {
+                dictionary.putString(names.get(i));
+                dictionary.putString(executables.get(i));
+            }
+            VarintBuffer idColumn = new VarintBuffer();
+            VarintBuffer startColumn = new VarintBuffer();
+            VarintBuffer durationColumn = new VarintBuffer();
+            long previousId = 0;
+            long previousStart = 0;
+            long previousDuration = 0;
+            for (int i = 0; i < count; i++) {
+                idColumn.putZigZag(appIds[i] - previousId);
+                startColumn.putZigZag(starts[i] - previousStart);
+                durationColumn.putZigZag(durations[i] - previousDuration);
+                previousId = appIds[i];
+                previousStart = starts[i];
+                previousDuration = durations[i];
+            }
+
+            VarintBuffer[] blocks = {dictionary, idColumn, startColumn, durationColumn};
+            int total = HEADER_BYTES;
+            for (VarintBuffer block : blocks) {
+                total += 4 + block.size() + 4;
+            }
+
+            ByteBuffer out = ByteBuffer.allocate(total);
+            out.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                    .putLong(day.toEpochDay()).putLong(dayStartEpochNanos)
+                    .putInt(count).putInt(names.size());
+            CRC32C crc = new CRC32C();
+            for (VarintBuffer block : blocks) {
+                crc.reset();
+                crc.update(block.bytes(), 0, block.size());
+                out.putInt(block.size()).put(block.bytes(), 0, block.size()).putInt((int) crc.getValue());
+            }
+
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            out.flip();
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private void sortByStart() {
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(starts[a], starts[b]));
+            int[] sortedIds = new int[count];
+            long[] sortedStarts = new long[count];
+            long[] sortedDurations = new long[count];
+            for (int i = 0; i < count; i++) {
+                sortedIds[i] = appIds[order[i]];
+                sortedStarts[i] = starts[order[i]];
+                sortedDurations[i] = durations[order[i]];
+            }
+            appIds = sortedIds;
+            starts = sortedStarts;
+            durations = sortedDurations;
+        }
+    }
+
+    /**
+     * Tệp cột đã được đọc vào bộ nhớ; mỗi khối được kiểm tra CRC khi lần đầu giải mã.
+     */
+    public static final class Reader {
+        private final ByteBuffer data;
+        private final LocalDate day;
+        private final long dayStartEpochNanos;
+        private final int count;
+        private final int entries;
+        private final int[] blockOffsets = new int[4];
+        private final int[] blockLengths = new int[4];
+        private String[] names;
+        private String[] executables;
+
+        private Reader(ByteBuffer data) throws IOException {
+            this.data = data;
+            if (data.remaining() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+                throw new IOException("Không phải tệp cột theo ngày");
+            }
+            this.day = LocalDate.ofEpochDay(data.getLong(8));
+            this.dayStartEpochNanos = data.getLong(16);
+            this.count = data.getInt(24);
+            this.entries = data.getInt(28);
+
+            int position = HEADER_BYTES;
+            for (int block = 0; block < 4; block++) {
+                if (position + 4 > data.limit()) {
+                    throw new IOException("Tệp cột bị cắt cụt");
+                }
+                int length = data.getInt(position);
+                if (length < 0 || position + 4 + length + 4 > data.limit()) {
+                    throw new IOException("Tệp cột bị cắt cụt");
+                }
+                blockOffsets[block] = position + 4;
+                blockLengths[block] = length;
+                position += 4 + length + 4;
+            }
+
+            // Phần đầu không có CRC: mỗi giá trị của cột chiếm ít nhất một byte và mỗi mục từ điển ít
+            // nhất hai byte, nên số đếm lớn hơn độ dài khối là tệp hỏng chứ không được cấp phát theo nó
+            if (count < 0 || count > blockLengths[1] || count > blockLengths[2] || count > blockLengths[3]) {
+                throw new IOException("Số khoảng trong phần đầu tệp cột không hợp lệ: " + count);
+            }
+            if (entries < 0 || entries > blockLengths[0] / 2) {
+                throw new IOException("Kích thước từ điển trong phần đầu tệp cột không hợp lệ: " + entries);
+            }
+        }
+
+        public static Reader open(Path path) throws IOException {
+            return new Reader(ByteBuffer.wrap(Files.readAllBytes(path)));
+        }
+
+        public LocalDate getDay() {
+            return day;
+        }
+
+        public long getDayStartEpochNanos() {
+            return dayStartEpochNanos;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Tổng thời lượng (ns) theo tên ứng dụng; chỉ giải mã cột id và cột thời lượng.
+         */
+        public Map<String, Long> totalsByApplication() throws IOException {
+            loadDictionary();
+            long[] ids = decode(1);
+            long[] durations = decode(3);
+            long[] totals = new long[names.length];
+            for (int i = 0; i < count; i++) {
+                totals[(int) ids[i]] += durations[i];
+            }
+            Map<String, Long> result = new HashMap<>();
+            for (int i = 0; i < totals.length; i++) {
+                if (totals[i] > 0) {
+                    result.merge(names[i], totals[i] * UNIT_NANOS, Long::sum);
+                }
+            }
+            return result;
+        }
+
+        public void forEachInterval(IntervalVisitor visitor) throws IOException {
+            loadDictionary();
+            long[] ids = decode(1);
+            long[] starts = decode(2);
+            long[] durations = decode(3);
+            for (int i = 0; i < count; i++) {
+                int id = (int) ids[i];
+                long start = dayStartEpochNanos + starts[i] * UNIT_NANOS;
+                visitor.visit(names[id], executables[id], start, start + durations[i] * UNIT_NANOS);
+            }
+        }
+
+        private void loadDictionary() throws IOException {
+            if (names != null) {
+                return;
+            }
+            verify(0);
+            String[] loadedNames = new String[entries];
+            String[] loadedExecutables = new String[entries];
+            int[] position = {blockOffsets[0]};
+            int end = blockOffsets[0] + blockLengths[0];
+            for (int i = 0; i < entries; i++) {
+                loadedNames[i] = readString(position, end);
+                loadedExecutables[i] = readString(position, end);
+            }
+            if (position[0] != end) {
+                throw new IOException("Kích thước từ điển không khớp khối từ điển của tệp ngày " + day);
+            }
+            names = loadedNames;
+            executables = loadedExecutables;
+        }
+
+        /**
+         * Giải mã một cột delta zig-zag thành giá trị tuyệt đối.
+         */
+        private long[] decode(int block) throws IOException {
+            verify(block);
+            long[] values = new long[count];
+            int[] position = {blockOffsets[block]};
+            int end = blockOffsets[block] + blockLengths[block];
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                long raw = readVarint(position, end);
+                previous += (raw >>> 1) ^ -(raw & 1);
+                values[i] = previous;
+            }
+            if (position[0] != end) {
+                throw new IOException("Số khoảng trong phần đầu không khớp cột " + block + " của tệp ngày " + day);
+            }
+            if (block == 1) {
+                for (long id : values) {
+                    if (id < 0 || id >= names.length) {
+                        throw new IOException("Id ứng dụng ngoài từ điển: " + id);
+                    }
+                }
+            }
+            return values;
+        }
+
+        private void verify(int block) throws IOException {
+            int offset = blockOffsets[block];
+            int length = blockLengths[block];
+            CRC32C crc = new CRC32C();
+            crc.update(data.array(), offset, length);
+            if ((int) crc.getValue() != data.getInt(offset + length)) {
+                throw new IOException("Sai CRC32C ở khối " + block + " của tệp ngày " + day);
+            }
+        }
+
+        private long readVarint(int[] position, int end) throws IOException {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position[0] >= end) {
+                    throw new IOException("Khối dữ liệu của tệp ngày " + day + " thiếu giá trị");
+                }
+                b = data.get(position[0]++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0 && shift < 64);
+            return value;
+        }
+
+        private String readString(int[] position, int end) throws IOException {
+            long length = readVarint(position, end);
+            if (length < 0 || length > end - position[0]) {
+                throw new IOException("Chuỗi vượt quá khối từ điển của tệp ngày " + day);
+            }
+            String value = new String(data.array(), position[0], (int) length, StandardCharsets.UTF_8);
+            position[0] += (int) length;
+            return value;
+        }
+    }
+
+    /**
+     * Bộ đệm byte tự giãn để ghi varint.
+     */
+    private static final class VarintBuffer {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void putZigZag(long value) {
+            putVarint((value << 1) ^ (value >> 63));
+        }
+
+        void putVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void putString(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(encoded.length);
+            ensure(encoded.length);
+            System.arraycopy(encoded, 0, bytes, size, encoded.length);
+            size += encoded.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -2,13 +2,21 @@ package com.promonitor.util;
 
 import com.promonitor.controller.LimitManager;
 import com.promonitor.model.*;
+import com.promonitor.model.enums.LimitTargetType;
 import com.promonitor.model.enums.LimitType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
 import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Function;
 
 public class DataStorage {
     private static final Logger logger = LoggerFactory.getLogger(DataStorage.class);
@@ -18,6 +26,9 @@ public class DataStorage {
 
     private static final String GROUPS_FILE = "application_groups.dat";
     private static final String LIMITS_FILE = "limits.dat";
+    private static final String JOURNAL_DIR = "journal";
+    private static final String ROLLUP_FILE = "usage_rollups.dat";
+    private static final String DAYS_DIR = "days";
 
     public DataStorage(String userId) {
         this.userId = userId;
@@ -39,6 +50,63 @@ public class DataStorage {
         }
     }
 
+    public Path getJournalDirectory() {
+        return Paths.get(dataDir, JOURNAL_DIR);
+    }
+
+    public DayArchive getDayArchive() {
+        return new DayArchive(Paths.get(dataDir, DAYS_DIR), ZoneId.systemDefault());
+    }
+
+    /**
+     * Mở nhật ký sử dụng của người dùng; mỗi lần mở bắt đầu một phân đoạn mới.
+     */
+    public UsageJournal openUsageJournal() throws IOException {
+        UsageJournal journal = new UsageJournal(getJournalDirectory());
+        logger.info("Đã mở nhật ký sử dụng: {}", journal.getDirectory());
+        return journal;
+    }
+
+    /**
+     * Tải các tầng tổng hợp rồi cộng thêm phần nhật ký sau mốc đã lưu; nếu chưa có tệp hoặc tệp
+     * không đọc được thì dựng lại từ tệp ngày và nhật ký sử dụng.
+     */
+    public boolean loadUsageRollup(UsageRollup rollup, Function<String, Collection<String>> groupsByAppName) {
+        Path file = Paths.get(dataDir, ROLLUP_FILE);
+        DayArchive archive = getDayArchive();
+        try {
+            List<Path> segments = UsageJournal.listSegments(getJournalDirectory());
+            if (Files.exists(file)) {
+                try {
+                    rollup.load(file);
+                    int replayed = rollup.replayAfterHighWaterMark(archive, segments, groupsByAppName);
+                    if (replayed > 0) {
+                        logger.info("Đã bổ sung {} khoảng sử dụng chưa được lưu vào dữ liệu tổng hợp", replayed);
+                    }
+                    return true;
+                } catch (IOException e) {
+                    logger.warn("Không đọc được tệp tổng hợp, dựng lại từ nhật ký", e);
+                }
+            }
+            rollup.rebuildFrom(archive, segments, groupsByAppName);
+            logger.info("Đã dựng lại dữ liệu tổng hợp từ tệp ngày và nhật ký sử dụng");
+            return true;
+        } catch (IOException e) {
+            logger.error("Lỗi khi tải dữ liệu tổng hợp", e);
+            return false;
+        }
+    }
+
+    public boolean saveUsageRollup(UsageRollup rollup) {
+        try {
+            rollup.save(Paths.get(dataDir, ROLLUP_FILE));
+            return true;
+        } catch (IOException e) {
+            logger.error("Lỗi khi lưu dữ liệu tổng hợp", e);
+            return false;
+        }
+    }
+
     public boolean saveApplicationGroups(List<ApplicationGroup> groups) {
         String filePath = dataDir + File.separator + GROUPS_FILE;
 
@@ -125,6 +193,10 @@ public class DataStorage {
                 } else if (entry.getKey() instanceof ApplicationGroup group) {
                     sLimit.targetType = "GROUP";
                     sLimit.targetName = group.getName();
+                } else if (entry.getKey() instanceof LimitTarget target) {
+                    sLimit.targetType = "PATTERN";
+                    sLimit.targetName = target.getPattern();
+                    sLimit.targetId = target.getType().name();
                 }
                 if (limit.getType() == LimitType.SCHEDULE && limit.getSchedule() != null) {
                     sLimit.scheduleData = serializeSchedule(limit.getSchedule());
@@ -168,6 +240,13 @@ public class DataStorage {
                     Application app = new Application(sLimit.targetName,
                             Integer.parseInt(sLimit.targetId));
                     limitManager.setLimit(app, limit);
+                } else if ("PATTERN".equals(sLimit.targetType)) {
+                    try {
+                        limitManager.setLimit(new LimitTarget(LimitTargetType.valueOf(sLimit.targetId),
+                                sLimit.targetName), limit);
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("Bỏ qua giới hạn theo mẫu không hợp lệ: {}", sLimit.targetName);
+                    }
                 } else if ("GROUP".equals(sLimit.targetType)) {
                     List<ApplicationGroup> groups = loadApplicationGroups();
                     for (ApplicationGroup group : groups) {
@@ -187,15 +266,43 @@ public class DataStorage {
         }
     }
 
+    // Mỗi ngày lưu dạng "09:00-12:00;22:00-02:00", khóa là tên DayOfWeek
     private Map<String, String> serializeSchedule(Schedule schedule) {
         Map<String, String> data = new HashMap<>();
-        // Thực hiện tuần tự hóa lịch trình
-        // Implementation would go here
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<Schedule.TimeRange> ranges = schedule.getTimesForDay(day);
+            if (ranges.isEmpty()) {
+                continue;
+            }
+            StringBuilder sb = new StringBuilder();
+            for (Schedule.TimeRange range : ranges) {
+                if (sb.length() > 0) {
+                    sb.append(';');
+                }
+                sb.append(range.getStartTime()).append('-').append(range.getEndTime());
+            }
+            data.put(day.name(), sb.toString());
+        }
         return data;
     }
 
     private Schedule deserializeSchedule(Map<String, String> data) {
-        return new Schedule();
+        Schedule schedule = new Schedule();
+        if (data == null) {
+            return schedule;
+        }
+        for (Map.Entry<String, String> entry : data.entrySet()) {
+            try {
+                DayOfWeek day = DayOfWeek.valueOf(entry.getKey());
+                for (String range : entry.getValue().split(";")) {
+                    String[] parts = range.split("-");
+                    schedule.addTimeForDay(day, LocalTime.parse(parts[0]), LocalTime.parse(parts[1]));
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Bỏ qua lịch trình không hợp lệ: {}={}", entry.getKey(), entry.getValue());
+            }
+        }
+        return schedule;
     }
 
     private static class SerializableApplication implements Serializable {
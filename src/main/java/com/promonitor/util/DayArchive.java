@@ -0,0 +1,174 @@
+package com.promonitor.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Thư mục các tệp cột theo ngày ({@code yyyy-MM-dd.pmc}). Truy vấn thô đọc những ngày đã lưu trữ
+ * từ tệp cột và phần còn lại từ nhật ký, bỏ qua các đoạn nhật ký rơi vào ngày đã có tệp cột.
+ */
+public class DayArchive {
+    private static final Logger logger = LoggerFactory.getLogger(DayArchive.class);
+
+    private final Path directory;
+    private final ZoneId zone;
+
+    public DayArchive(Path directory, ZoneId zone) {
+        this.directory = directory;
+        this.zone = zone;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public Path dayFile(LocalDate day) {
+        return directory.resolve(ColumnarDayFile.fileName(day));
+    }
+
+    public long dayStartEpochNanos(LocalDate day) {
+        return toEpochNanos(day.atStartOfDay(zone).toInstant());
+    }
+
+    public ColumnarDayFile.Writer newWriter(LocalDate day) {
+        return new ColumnarDayFile.Writer(day, dayStartEpochNanos(day));
+    }
+
+    public void store(LocalDate day, ColumnarDayFile.Writer writer) throws IOException {
+        Files.createDirectories(directory);
+        writer.writeTo(dayFile(day));
+    }
+
+    public NavigableSet<LocalDate> archivedDays() throws IOException {
+        NavigableSet<LocalDate> days = new TreeSet<>();
+        if (!Files.isDirectory(directory)) {
+            return days;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ColumnarDayFile.SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    days.add(LocalDate.parse(name.substring(0, name.length() - ColumnarDayFile.SUFFIX.length())));
+                } catch (DateTimeParseException e) {
+                    logger.warn("Bỏ qua tệp không đúng tên ngày: {}", path);
+                }
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Tổng thời gian theo ứng dụng trong [from, to), kết hợp tệp cột với các phân đoạn nhật ký.
+     * Ngày nằm trọn trong khoảng chỉ cần đọc cột id và cột thời lượng.
+     */
+    public Map<String, Long> totalsByApplication(List<Path> segments, long fromEpochNanos, long toEpochNanos)
+            throws IOException {
+        NavigableSet<LocalDate> archived = archivedDays();
+        Map<String, Long> totals = new HashMap<>();
+
+        LocalDate first = toLocalDate(fromEpochNanos);
+        LocalDate last = toLocalDate(toEpochNanos - 1);
+        for (LocalDate day : archived.subSet(first, true, last, true)) {
+            long dayStart = dayStartEpochNanos(day);
+            long dayEnd = dayStartEpochNanos(day.plusDays(1));
+            // Một tệp ngày hỏng chỉ làm mất ngày đó; tổng của ngày được cộng vào sau khi đọc xong cả tệp
+            Map<String, Long> dayTotals = new HashMap<>();
+            try {
+                ColumnarDayFile.Reader reader = ColumnarDayFile.Reader.open(dayFile(day));
+                if (dayStart >= fromEpochNanos && dayEnd <= toEpochNanos) {
+                    dayTotals = reader.totalsByApplication();
+                } else {
+                    Map<String, Long> clipped = dayTotals;
+                    reader.forEachInterval((name, exe, start, end) ->
+                            addClipped(clipped, name, start, end, fromEpochNanos, toEpochNanos));
+                }
+            } catch (IOException e) {
+                logger.warn("Không đọc được tệp ngày {}, bỏ qua", day, e);
+                continue;
+            }
+            dayTotals.forEach((name, nanos) -> totals.merge(name, nanos, Long::sum));
+        }
+
+        scanJournal(segments, archived, fromEpochNanos, toEpochNanos,
+                (name, exe, start, end) -> totals.merge(name, end - start, Long::sum));
+        return totals;
+    }
+
+    /**
+     * Duyệt mọi khoảng trong [from, to) từ cả tệp cột lẫn nhật ký, đã cắt theo hai đầu khoảng.
+     */
+    public void scan(List<Path> segments, long fromEpochNanos, long toEpochNanos,
+                     JournalReader.IntervalVisitor visitor) throws IOException {
+        NavigableSet<LocalDate> archived = archivedDays();
+        LocalDate first = toLocalDate(fromEpochNanos);
+        LocalDate last = toLocalDate(toEpochNanos - 1);
+        for (LocalDate day : archived.subSet(first, true, last, true)) {
+            try {
+                ColumnarDayFile.Reader.open(dayFile(day)).forEachInterval((name, exe, start, end) -> {
+                    long clippedStart = Math.max(start, fromEpochNanos);
+                    long clippedEnd = Math.min(end, toEpochNanos);
+                    if (clippedStart < clippedEnd) {
+                        visitor.visit(name, exe, clippedStart, clippedEnd);
+                    }
+                });
+            } catch (IOException e) {
+                logger.warn("Không đọc được tệp ngày {}, bỏ qua", day, e);
+            }
+        }
+        scanJournal(segments, archived, fromEpochNanos, toEpochNanos, visitor);
+    }
+
+    /**
+     * Duyệt nhật ký, cắt từng khoảng theo ranh giới ngày và bỏ các mảnh thuộc ngày đã có tệp cột.
+     */
+    private void scanJournal(List<Path> segments, NavigableSet<LocalDate> archived,
+                             long fromEpochNanos, long toEpochNanos, JournalReader.IntervalVisitor visitor) {
+        JournalReader.scan(segments, fromEpochNanos, toEpochNanos, (name, exe, start, end) -> {
+            long pieceStart = Math.max(start, fromEpochNanos);
+            long limit = Math.min(end, toEpochNanos);
+            while (pieceStart < limit) {
+                LocalDate day = toLocalDate(pieceStart);
+                long pieceEnd = Math.min(limit, dayStartEpochNanos(day.plusDays(1)));
+                if (!archived.contains(day)) {
+                    visitor.visit(name, exe, pieceStart, pieceEnd);
+                }
+                pieceStart = pieceEnd;
+            }
+        });
+    }
+
+    private static void addClipped(Map<String, Long> totals, String name, long start, long end,
+                                   long fromEpochNanos, long toEpochNanos) {
+        long clipped = Math.min(end, toEpochNanos) - Math.max(start, fromEpochNanos);
+        if (clipped > 0) {
+            totals.merge(name, clipped, Long::sum);
+        }
+    }
+
+    public LocalDate toLocalDate(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                Math.floorMod(epochNanos, 1_000_000_000L)).atZone(zone).toLocalDate();
+    }
+
+    private static long toEpochNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+}
@@ -0,0 +1,247 @@
+package com.promonitor.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bánh xe hẹn giờ phân cấp: mỗi cấp có 64 ô, ô của cấp sau bao trùm cả một vòng của
+ * cấp trước. Đặt và hủy hẹn giờ là O(1); các hẹn giờ ở cấp cao được hạ dần xuống khi
+ * thời gian trôi tới. Không an toàn đa luồng: chỉ luồng gọi {@link #advanceTo(long)}
+ * được đặt và hủy hẹn giờ.
+ */
+public class HierarchicalTimingWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private final long tickNanos;
+    private final long originNanos;
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS];
+    private final long[] occupancy = new long[LEVELS];
+    // Dùng lại giữa các nhịp để advanceTo không cấp phát
+    private final List<Timeout> due = new ArrayList<>();
+
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickNanos, long nowNanos) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Độ phân giải phải lớn hơn 0");
+        }
+        this.tickNanos = tickNanos;
+        this.originNanos = nowNanos;
+    }
+
+    public Timeout schedule(long deadlineNanos, Runnable task) {
+        // Làm tròn lên để hẹn giờ không bao giờ chạy sớm hơn mốc đã đặt
+        long deadlineTick = Math.max(ceilTick(deadlineNanos), currentTick + 1);
+        Timeout timeout = new Timeout(this, deadlineTick, task);
+        insert(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cho thời gian trôi tới {@code nowNanos} và chạy mọi hẹn giờ đã tới hạn theo thứ tự.
+     */
+    public void advanceTo(long nowNanos) {
+        long target = floorTick(nowNanos);
+
+        while (currentTick < target) {
+            if (size == 0) {
+                currentTick = target;
+                break;
+            }
+
+            // Cấp 0 trống thì nhảy thẳng tới ranh giới vòng kế tiếp thay vì đi từng ô
+            long next = currentTick + 1;
+            if (occupancy[0] == 0) {
+                next = Math.min(target, (currentTick | SLOT_MASK) + 1);
+            }
+            currentTick = next;
+
+            if ((currentTick & SLOT_MASK) == 0) {
+                cascade(1);
+            }
+            collectDue((int) (currentTick & SLOT_MASK), due);
+        }
+
+        try {
+            for (int i = 0; i < due.size(); i++) {
+                Timeout timeout = due.get(i);
+                if (!timeout.cancelled) {
+                    timeout.fired = true;
+                    timeout.task.run();
+                }
+            }
+        } finally {
+            due.clear();
+        }
+    }
+
+    /**
+     * @return giới hạn trên của số nano giây tới lần cần gọi {@link #advanceTo(long)} kế tiếp
+     *         (một hẹn giờ tới hạn hoặc một lần hạ cấp), hoặc -1 nếu không còn hẹn giờ nào
+     */
+    public long nanosUntilNextDeadline(long nowNanos) {
+        if (size == 0) {
+            return -1;
+        }
+
+        long ticks = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupancy[level] == 0) {
+                continue;
+            }
+            int shift = SLOT_BITS * level;
+            int position = (int) ((currentTick >>> shift) & SLOT_MASK);
+            // Xoay mặt nạ để tìm ô có hẹn giờ gần nhất sau vị trí hiện tại
+            long rotated = Long.rotateRight(occupancy[level], position + 1);
+            int distance = Long.numberOfTrailingZeros(rotated) + 1;
+            long blockStart = ((currentTick >>> shift) + distance) << shift;
+            ticks = Math.min(ticks, blockStart - currentTick);
+        }
+
+        long deadline = originNanos + (currentTick + ticks) * tickNanos;
+        return Math.max(0, deadline - nowNanos);
+    }
+
+    private void insert(Timeout timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        long placementTick = delta >= MAX_SPAN ? currentTick + MAX_SPAN - 1 : timeout.deadlineTick;
+        delta = placementTick - currentTick;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((placementTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.linked = true;
+        timeout.prev = null;
+        timeout.next = slots[level][slot];
+        if (timeout.next != null) {
+            timeout.next.prev = timeout;
+        }
+        slots[level][slot] = timeout;
+        occupancy[level] |= 1L << slot;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        if (slots[timeout.level][timeout.slot] == null) {
+            occupancy[timeout.level] &= ~(1L << timeout.slot);
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.linked = false;
+    }
+
+    // Hạ các hẹn giờ của vòng vừa bắt đầu ở cấp {@code level} xuống các cấp thấp hơn
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+        int shift = SLOT_BITS * level;
+        int slot = (int) ((currentTick >>> shift) & SLOT_MASK);
+        if (slot == 0) {
+            cascade(level + 1);
+        }
+
+        Timeout timeout = slots[level][slot];
+        slots[level][slot] = null;
+        occupancy[level] &= ~(1L << slot);
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            insert(timeout);
+            timeout = next;
+        }
+    }
+
+    private void collectDue(int slot, List<Timeout> due) {
+        Timeout timeout = slots[0][slot];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.deadlineTick <= currentTick) {
+                unlink(timeout);
+                size--;
+                due.add(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private long floorTick(long nanos) {
+        return Math.floorDiv(nanos - originNanos, tickNanos);
+    }
+
+    private long ceilTick(long nanos) {
+        return -Math.floorDiv(originNanos - nanos, tickNanos);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    public static final class Timeout {
+        private final HierarchicalTimingWheel wheel;
+        private final long deadlineTick;
+        private final Runnable task;
+
+        private Timeout prev;
+        private Timeout next;
+        private int level;
+        private int slot;
+        private boolean linked;
+        private boolean cancelled;
+        private boolean fired;
+
+        private Timeout(HierarchicalTimingWheel wheel, long deadlineTick, Runnable task) {
+            this.wheel = wheel;
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        public boolean cancel() {
+            if (cancelled || fired) {
+                return false;
+            }
+            cancelled = true;
+            // Hẹn giờ đã được lấy ra khỏi ô để chuẩn bị chạy thì chỉ cần đánh dấu
+            if (linked) {
+                wheel.unlink(this);
+                wheel.size--;
+            }
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isExpired() {
+            return fired;
+        }
+
+        public long getDeadlineNanos() {
+            return wheel.originNanos + deadlineTick * wheel.tickNanos;
+        }
+    }
+}
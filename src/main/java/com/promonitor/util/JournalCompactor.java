@@ -0,0 +1,376 @@
+package com.promonitor.util;
+
+import com.promonitor.model.enums.RollupTier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dịch vụ nền gộp các phân đoạn nhật ký đã niêm phong thành tệp cột theo ngày. Khoảng qua nửa đêm
+ * được cắt theo ngày, các khoảng liền nhau của cùng ứng dụng được nối lại, rồi trộn với tệp ngày
+ * sẵn có và thay thế nguyên tử; phân đoạn chỉ bị xóa sau khi mọi tệp ngày của nó đã được ghi.
+ * Chạy trên luồng ưu tiên thấp và giới hạn số byte đọc ghi mỗi giây để không tranh với nhịp lấy
+ * mẫu hay giao diện.
+ */
+public class JournalCompactor {
+    private static final Logger logger = LoggerFactory.getLogger(JournalCompactor.class);
+
+    public static final long DEFAULT_MAX_BYTES_PER_SECOND = 2L * 1024 * 1024;
+
+    // Chỉ nối khoảng chạm hoặc chồng nhau; khe nhỏ hơn độ phân giải của tệp ngày coi như liền nhau
+    private static final long COALESCE_GAP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long INITIAL_DELAY_MINUTES = 2;
+    private static final long PERIOD_MINUTES = 60;
+    // Ước lượng số byte ghi cho mỗi khoảng trong tệp cột, chỉ dùng để điều tiết
+    private static final int ESTIMATED_BYTES_PER_INTERVAL = 8;
+
+    private static final class Piece {
+        final String appName;
+        final String executablePath;
+        final long start;
+        long end;
+
+        Piece(String appName, String executablePath, long start, long end) {
+            this.appName = appName;
+            this.executablePath = executablePath;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Báo cáo và bảng tổng hợp tính theo tên ứng dụng (tiêu đề cửa sổ), nên chỉ nối những khoảng
+         * cùng tên và cùng tệp thực thi; nối qua tiêu đề khác sẽ chuyển thời gian sang tiêu đề khác.
+         */
+        String identity() {
+            return appName + '\0' + (executablePath != null ? executablePath : "");
+        }
+    }
+
+    private final UsageJournal journal;
+    private final DayArchive archive;
+    private final long maxBytesPerSecond;
+
+    // Phân đoạn đã niêm phong không đổi nữa nên thống kê {minStart, maxEnd, count} được giữ lại
+    private final Map<Path, long[]> segmentStats = new HashMap<>();
+    // Phân đoạn đã nằm trong tệp ngày nhưng chưa xóa được (ví dụ còn bản ánh xạ của một truy vấn
+    // báo cáo trên Windows); chỉ thử xóa lại, không gộp lại
+    private final Set<Path> pendingDeletes = new LinkedHashSet<>();
+
+    // Khóa riêng cho bật/tắt: stop() không được chờ một lượt gộp đang giữ khóa của compactNow()
+    private final Object lifecycleLock = new Object();
+    private ScheduledExecutorService scheduler;
+    private long throttleWindowStart;
+    private long throttleWindowBytes;
+
+    private volatile long runCount;
+    private volatile long compactedSegmentCount;
+    private volatile long writtenDayCount;
+    private volatile long coalescedCount;
+    private volatile long rawExpiredCount;
+
+    public JournalCompactor(UsageJournal journal, DayArchive archive) {
+        this(journal, archive, DEFAULT_MAX_BYTES_PER_SECOND);
+    }
+
+    public JournalCompactor(UsageJournal journal, DayArchive archive, long maxBytesPerSecond) {
+        if (maxBytesPerSecond <= 0) {
+            throw new IllegalArgumentException("Giới hạn byte mỗi giây phải lớn hơn 0");
+        }
+        this.journal = journal;
+        this.archive = archive;
+        this.maxBytesPerSecond = maxBytesPerSecond;
+    }
+
+    public void start() {
+        synchronized (lifecycleLock) {
+            if (scheduler != null) {
+                return;
+            }
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "promonitor-compactor");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::runSafely, INITIAL_DELAY_MINUTES, PERIOD_MINUTES, TimeUnit.MINUTES);
+            logger.info("Đã bắt đầu dịch vụ gộp nhật ký sử dụng");
+        }
+    }
+
+    /**
+     * Dừng dịch vụ mà không chờ lượt gộp đang chạy: luồng gộp bị ngắt ngay cả khi đang ngủ để điều
+     * tiết. Phân đoạn chỉ bị xóa sau khi mọi tệp ngày của nó đã được ghi nên lượt bị ngắt không làm
+     * mất dữ liệu; lần chạy sau gộp lại từ đầu.
+     */
+    public void stop() {
+        ScheduledExecutorService stopping;
+        synchronized (lifecycleLock) {
+            stopping = scheduler;
+            scheduler = null;
+        }
+        if (stopping == null) {
+            return;
+        }
+        stopping.shutdownNow();
+        try {
+            if (!stopping.awaitTermination(2, TimeUnit.SECONDS)) {
+                logger.warn("Dịch vụ gộp nhật ký chưa dừng kịp");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runSafely() {
+        try {
+            compactNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Kênh tệp bị đóng do stop() ngắt luồng giữa lượt gộp
+                logger.debug("Lượt gộp nhật ký bị ngắt khi dừng", e);
+            } else {
+                logger.error("Lỗi khi gộp nhật ký sử dụng", e);
+            }
+        }
+    }
+
+    /**
+     * Gộp một lượt.
+     *
+     * @return số phân đoạn đã được chuyển vào tệp ngày và xóa
+     */
+    public synchronized int compactNow() throws IOException, InterruptedException {
+        runCount++;
+        retryPendingDeletes();
+        applyRawRetention();
+
+        List<Path> sealed = journal.sealedSegments();
+        sealed.removeAll(pendingDeletes);
+        if (sealed.isEmpty()) {
+            return 0;
+        }
+        List<Path> all = journal.segmentsForRead();
+        all.removeAll(pendingDeletes);
+        if (all.size() < sealed.size() || !all.subList(0, sealed.size()).equals(sealed)) {
+            return 0;
+        }
+
+        List<long[]> stats = new ArrayList<>(all.size());
+        for (int i = 0; i < all.size(); i++) {
+            stats.add(statsOf(all.get(i), i < sealed.size()));
+        }
+        segmentStats.keySet().retainAll(sealed);
+
+        int consumed = consumablePrefix(stats, sealed.size(), archive.toLocalDate(epochNanosNow()));
+        if (consumed == 0) {
+            return 0;
+        }
+        List<Path> segments = new ArrayList<>(all.subList(0, consumed));
+
+        Map<LocalDate, List<Piece>> piecesByDay = new TreeMap<>();
+        for (Path segment : segments) {
+            throttle(Files.size(segment));
+            // Đọc lên heap chứ không ánh xạ để phân đoạn xóa được ngay sau khi gộp
+            JournalReader.scan(JournalSegment.load(segment),
+                    (name, exe, start, end) -> splitByDay(piecesByDay, name, exe, start, end));
+        }
+
+        for (Map.Entry<LocalDate, List<Piece>> entry : piecesByDay.entrySet()) {
+            writeDay(entry.getKey(), entry.getValue());
+        }
+        if (Thread.interrupted()) {
+            // Đang dừng: giữ phân đoạn lại, lần sau gộp lại và khoảng trùng được nối làm một
+            throw new InterruptedException();
+        }
+
+        for (Path segment : segments) {
+            segmentStats.remove(segment);
+            if (!delete(segment)) {
+                pendingDeletes.add(segment);
+            }
+        }
+        compactedSegmentCount += segments.size();
+        logger.info("Đã gộp {} phân đoạn nhật ký thành {} tệp ngày", segments.size(), piecesByDay.size());
+        return segments.size();
+    }
+
+    /**
+     * Xóa phân đoạn nhật ký thô đã quá thời gian lưu giữ của tầng {@link RollupTier#RAW}. Bình thường
+     * chúng đã được gộp vào tệp ngày từ lâu; phân đoạn còn sót thì vẫn có trong các tầng tổng hợp.
+     */
+    private void applyRawRetention() throws IOException {
+        long cutoff = System.currentTimeMillis() - RollupTier.RAW.getRetention().toMillis();
+        rawExpiredCount += journal.deleteSegmentsBefore(cutoff);
+    }
+
+    private void retryPendingDeletes() {
+        pendingDeletes.removeIf(JournalCompactor::delete);
+    }
+
+    /**
+     * Các truy vấn báo cáo vẫn đọc mọi phân đoạn còn lại, nhưng bỏ qua phần thuộc ngày đã có tệp cột
+     * nên phân đoạn chưa xóa được không bị tính hai lần. Sau khi khởi động lại, phân đoạn đó được gộp
+     * lại một lần nữa; khoảng trùng chồng lên nhau và được nối làm một.
+     */
+    private static boolean delete(Path segment) {
+        try {
+            Files.deleteIfExists(segment);
+            return true;
+        } catch (IOException e) {
+            logger.debug("Chưa xóa được phân đoạn đã gộp, sẽ thử lại: {}", segment, e);
+            return false;
+        }
+    }
+
+    /**
+     * Số phân đoạn đầu tiên có thể gộp: mọi khoảng của chúng phải thuộc những ngày mà không
+     * phân đoạn nào còn lại (kể cả phân đoạn đang ghi) có dữ liệu, và trước hôm nay.
+     */
+    private int consumablePrefix(List<long[]> stats, int sealedCount, LocalDate today) {
+        for (int k = sealedCount; k > 0; k--) {
+            LocalDate cutoff = today;
+            for (int j = k; j < stats.size(); j++) {
+                long[] s = stats.get(j);
+                if (s[2] > 0) {
+                    LocalDate firstDay = archive.toLocalDate(s[0]);
+                    if (firstDay.isBefore(cutoff)) {
+                        cutoff = firstDay;
+                    }
+                }
+            }
+            boolean fits = true;
+            for (int i = 0; i < k && fits; i++) {
+                long[] s = stats.get(i);
+                fits = s[2] == 0 || archive.toLocalDate(s[1] - 1).isBefore(cutoff);
+            }
+            if (fits) {
+                return k;
+            }
+        }
+        return 0;
+    }
+
+    private long[] statsOf(Path segment, boolean sealed) throws IOException, InterruptedException {
+        long[] cached = sealed ? segmentStats.get(segment) : null;
+        if (cached != null) {
+            return cached;
+        }
+        throttle(Files.size(segment));
+        long[] stats = {Long.MAX_VALUE, Long.MIN_VALUE, 0};
+        JournalReader.scan(JournalSegment.load(segment), (name, exe, start, end) -> {
+            stats[0] = Math.min(stats[0], start);
+            stats[1] = Math.max(stats[1], end);
+            stats[2]++;
+        });
+        if (sealed) {
+            segmentStats.put(segment, stats);
+        }
+        return stats;
+    }
+
+    private void splitByDay(Map<LocalDate, List<Piece>> piecesByDay, String name, String exe, long start, long end) {
+        long pieceStart = start;
+        while (pieceStart < end) {
+            LocalDate day = archive.toLocalDate(pieceStart);
+            long pieceEnd = Math.min(end, archive.dayStartEpochNanos(day.plusDays(1)));
+            piecesByDay.computeIfAbsent(day, key -> new ArrayList<>())
+                    .add(new Piece(name, exe, pieceStart, pieceEnd));
+            pieceStart = pieceEnd;
+        }
+    }
+
+    /**
+     * Trộn các mảnh mới với tệp ngày sẵn có, nối khoảng liền kề hoặc chồng nhau của cùng ứng dụng
+     * rồi ghi đè nguyên tử. Tổng thời gian theo từng tên ứng dụng không đổi sau khi gộp.
+     */
+    private void writeDay(LocalDate day, List<Piece> pieces) throws IOException, InterruptedException {
+        Path existing = archive.dayFile(day);
+        if (Files.exists(existing)) {
+            throttle(Files.size(existing));
+            ColumnarDayFile.Reader.open(existing).forEachInterval((name, exe, start, end) ->
+                    pieces.add(new Piece(name, exe, start, end)));
+        }
+        pieces.sort(Comparator.comparing(Piece::identity).thenComparingLong(p -> p.start));
+
+        List<Piece> merged = new ArrayList<>(pieces.size());
+        Piece current = null;
+        for (Piece piece : pieces) {
+            if (current != null && current.identity().equals(piece.identity())
+                    && piece.start - current.end <= COALESCE_GAP_NANOS) {
+                current.end = Math.max(current.end, piece.end);
+                coalescedCount++;
+                continue;
+            }
+            current = piece;
+            merged.add(piece);
+        }
+        merged.sort(Comparator.comparingLong((Piece p) -> p.start).thenComparing(Piece::identity));
+
+        ColumnarDayFile.Writer writer = archive.newWriter(day);
+        for (Piece piece : merged) {
+            writer.add(piece.appName, piece.executablePath, piece.start, piece.end);
+        }
+
+        throttle((long) writer.size() * ESTIMATED_BYTES_PER_INTERVAL);
+        archive.store(day, writer);
+        writtenDayCount++;
+    }
+
+    /**
+     * Giữ tốc độ đọc ghi trung bình dưới {@link #maxBytesPerSecond} bằng cách ngủ trước mỗi khối.
+     */
+    private void throttle(long bytes) throws InterruptedException {
+        long now = System.nanoTime();
+        if (throttleWindowStart + throttleWindowBytes * 1_000_000_000L / maxBytesPerSecond < now) {
+            // Đã bắt kịp hạn mức, bắt đầu cửa sổ mới để thời gian rảnh không tích lũy thành đợt dồn
+            throttleWindowStart = now;
+            throttleWindowBytes = 0;
+        }
+        throttleWindowBytes += bytes;
+        long due = throttleWindowStart + throttleWindowBytes * 1_000_000_000L / maxBytesPerSecond;
+        if (due > now) {
+            TimeUnit.NANOSECONDS.sleep(due - now);
+        }
+    }
+
+    private static long epochNanosNow() {
+        return System.currentTimeMillis() * 1_000_000L;
+    }
+
+    public long getRunCount() {
+        return runCount;
+    }
+
+    public long getCompactedSegmentCount() {
+        return compactedSegmentCount;
+    }
+
+    public long getWrittenDayCount() {
+        return writtenDayCount;
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public long getRawExpiredCount() {
+        return rawExpiredCount;
+    }
+}
@@ -0,0 +1,121 @@
+package com.promonitor.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Truy vấn lịch sử trong các phân đoạn nhật ký bằng đường đọc ánh xạ bộ nhớ.
+ */
+public final class JournalReader {
+    private static final Logger logger = LoggerFactory.getLogger(JournalReader.class);
+
+    public interface IntervalVisitor {
+        void visit(String appName, String executablePath, long startEpochNanos, long endEpochNanos);
+    }
+
+    private JournalReader() {
+    }
+
+    /**
+     * Duyệt mọi khoảng sử dụng giao với [fromEpochNanos, toEpochNanos). Một phân đoạn bị bỏ qua
+     * chỉ nhờ đọc phần đầu của phân đoạn kế tiếp: nếu phân đoạn kế tiếp được tạo trước
+     * {@code fromEpochNanos} thì mọi bản ghi của nó đã khép lại trước khoảng truy vấn.
+     */
+    public static void scan(List<Path> segments, long fromEpochNanos, long toEpochNanos, IntervalVisitor visitor) {
+        long fromMillis = Math.floorDiv(fromEpochNanos, 1_000_000L);
+        long toMillis = Math.floorDiv(toEpochNanos, 1_000_000L);
+
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size()) {
+                long nextCreated = JournalSegment.readCreatedEpochMillis(segments.get(i + 1));
+                if (nextCreated >= 0 && nextCreated < fromMillis) {
+                    continue;
+                }
+            }
+
+            Path path = segments.get(i);
+            try {
+                JournalSegment segment = JournalSegment.open(path);
+                scanSegment(segment, fromEpochNanos, toEpochNanos, visitor);
+                // Các khoảng được ghi theo thứ tự thời gian: sau phân đoạn đầu tiên được tạo sau
+                // cuối khoảng truy vấn, không còn khoảng nào bắt đầu trước đó nữa
+                if (segment.getCreatedEpochMillis() > toMillis) {
+                    break;
+                }
+            } catch (IOException e) {
+                logger.warn("Bỏ qua phân đoạn nhật ký không đọc được: {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Duyệt mọi khoảng của một phân đoạn đã mở, ví dụ qua {@link JournalSegment#load(Path)}.
+     */
+    public static void scan(JournalSegment segment, IntervalVisitor visitor) {
+        scanSegment(segment, Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+    }
+
+    private static void scanSegment(JournalSegment segment, long fromEpochNanos, long toEpochNanos,
+                                    IntervalVisitor visitor) {
+        String[] names = new String[16];
+        String[] executables = new String[16];
+
+        JournalSegment.Cursor cursor = segment.cursor();
+        while (cursor.next()) {
+            if (cursor.isDictionary()) {
+                int id = cursor.appId();
+                if (id < 0) {
+                    continue;
+                }
+                if (id >= names.length) {
+                    int size = Math.max(id + 1, names.length * 2);
+                    names = Arrays.copyOf(names, size);
+                    executables = Arrays.copyOf(executables, size);
+                }
+                names[id] = cursor.appName();
+                executables[id] = cursor.executablePath();
+            } else if (cursor.isInterval()) {
+                long start = cursor.startEpochNanos();
+                long end = cursor.endEpochNanos();
+                int id = cursor.appId();
+                if (end <= fromEpochNanos || start >= toEpochNanos || id < 0 || id >= names.length
+                        || names[id] == null) {
+                    continue;
+                }
+                visitor.visit(names[id], executables[id], start, end);
+            }
+        }
+    }
+
+    /**
+     * @return tổng thời gian (ns) theo tên ứng dụng trong khoảng, đã cắt theo hai đầu khoảng
+     */
+    public static Map<String, Long> totalsByApplication(List<Path> segments, long fromEpochNanos, long toEpochNanos) {
+        Map<String, long[]> totals = new HashMap<>();
+        scan(segments, fromEpochNanos, toEpochNanos, (name, exe, start, end) -> {
+            long clipped = Math.min(end, toEpochNanos) - Math.max(start, fromEpochNanos);
+            totals.computeIfAbsent(name, key -> new long[1])[0] += clipped;
+        });
+
+        Map<String, Long> result = new HashMap<>(totals.size() * 2);
+        totals.forEach((name, nanos) -> result.put(name, nanos[0]));
+        return result;
+    }
+
+    public static List<Path> listSegments(Path directory) {
+        try {
+            return UsageJournal.listSegments(directory);
+        } catch (IOException e) {
+            logger.warn("Không thể liệt kê phân đoạn nhật ký trong {}", directory, e);
+            return new ArrayList<>();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.promonitor.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Một phân đoạn nhật ký sử dụng được ánh xạ chỉ đọc vào bộ nhớ. Dữ liệu nằm trong page cache
+ * của hệ điều hành, không được chép lên heap; {@link Cursor} duyệt các bản ghi tại chỗ.
+ * Khi tệp sẽ bị xóa ngay sau khi đọc thì dùng {@link #load(Path)}: trên Windows không xóa được
+ * tệp còn bản ánh xạ, mà bản ánh xạ chỉ được giải phóng khi bộ gom rác thu hồi nó.
+ */
+public final class JournalSegment {
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final long createdEpochMillis;
+
+    private JournalSegment(Path path, ByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        this.createdEpochMillis = buffer.getLong(8);
+    }
+
+    /**
+     * Ánh xạ phân đoạn với kích thước tại thời điểm mở; phần được ghi thêm sau đó không được thấy.
+     */
+    public static JournalSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < UsageJournal.HEADER_BYTES) {
+                throw new IOException("Phân đoạn nhật ký quá ngắn: " + path);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Phân đoạn nhật ký quá lớn: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != UsageJournal.MAGIC) {
+                throw new IOException("Không phải phân đoạn nhật ký: " + path);
+            }
+            // Bản ánh xạ vẫn dùng được sau khi đóng kênh
+            return new JournalSegment(path, buffer);
+        }
+    }
+
+    /**
+     * Đọc cả phân đoạn lên heap qua {@link FileChannel} rồi đóng tệp, không để lại bản ánh xạ nào.
+     */
+    public static JournalSegment load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < UsageJournal.HEADER_BYTES) {
+                throw new IOException("Phân đoạn nhật ký quá ngắn: " + path);
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Phân đoạn nhật ký quá lớn: " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // đọc tới hết kích thước lúc mở
+            }
+            buffer.flip();
+            if (buffer.getInt(0) != UsageJournal.MAGIC) {
+                throw new IOException("Không phải phân đoạn nhật ký: " + path);
+            }
+            return new JournalSegment(path, buffer);
+        }
+    }
+
+    /**
+     * Đọc riêng thời điểm tạo trong phần đầu phân đoạn mà không ánh xạ cả tệp.
+     *
+     * @return -1 nếu phần đầu không hợp lệ
+     */
+    public static long readCreatedEpochMillis(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(UsageJournal.HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // đọc tới khi đủ phần đầu
+            }
+            if (header.hasRemaining() || header.getInt(0) != UsageJournal.MAGIC) {
+                return -1;
+            }
+            return header.getLong(8);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getCreatedEpochMillis() {
+        return createdEpochMillis;
+    }
+
+    public int getSizeBytes() {
+        return buffer.limit();
+    }
+
+    /**
+     * Con trỏ duyệt bản ghi không cấp phát: các trường của bản ghi hiện tại được đọc trực tiếp
+     * từ vùng ánh xạ. Chỉ {@link #appName()} và {@link #executablePath()} tạo chuỗi mới, và chỉ
+     * dùng cho bản ghi từ điển. Dừng ở bản ghi ghi dở cuối phân đoạn, nếu có.
+     */
+    public final class Cursor {
+        private int position = UsageJournal.HEADER_BYTES;
+        private int bodyStart;
+        private int bodyLength;
+        private byte type;
+
+        public boolean next() {
+            int limit = buffer.limit();
+            if (position + 4 > limit) {
+                return false;
+            }
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > limit - position - 4) {
+                position = limit;
+                return false;
+            }
+            bodyStart = position + 4;
+            bodyLength = length;
+            position = bodyStart + length;
+            type = buffer.get(bodyStart);
+            return true;
+        }
+
+        public void reset() {
+            position = UsageJournal.HEADER_BYTES;
+            bodyLength = 0;
+            type = 0;
+        }
+
+        public byte type() {
+            return type;
+        }
+
+        public boolean isInterval() {
+            return type == UsageJournal.TYPE_INTERVAL && bodyLength >= UsageJournal.INTERVAL_BODY_BYTES;
+        }
+
+        public boolean isDictionary() {
+            return type == UsageJournal.TYPE_DICTIONARY;
+        }
+
+        /**
+         * @return id cục bộ của ứng dụng trong phân đoạn, dùng cho cả hai loại bản ghi
+         */
+        public int appId() {
+            return buffer.getInt(bodyStart + 1);
+        }
+
+        public long startEpochNanos() {
+            return buffer.getLong(bodyStart + 5);
+        }
+
+        public long endEpochNanos() {
+            return buffer.getLong(bodyStart + 13);
+        }
+
+        public String appName() {
+            return readString(bodyStart + 5);
+        }
+
+        public String executablePath() {
+            int nameLength = buffer.getShort(bodyStart + 5) & 0xFFFF;
+            return readString(bodyStart + 5 + 2 + nameLength);
+        }
+
+        private String readString(int offset) {
+            int length = buffer.getShort(offset) & 0xFFFF;
+            if (offset + 2 + length > bodyStart + bodyLength) {
+                return "";
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(offset + 2, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.promonitor.util;
+
+import com.promonitor.model.ProcessCatalog;
+import com.promonitor.model.platform.ProcessHandleSource;
+import com.promonitor.model.platform.ProcessSources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.function.IntSupplier;
+
+/**
+ * So sánh liệt kê tiến trình trong JVM (toàn bộ và tăng dần) với cách cũ gọi ps/tasklist
+ * rồi tách từng dòng.
+ * Tham số: [số lần liệt kê]
+ */
+public final class ProcessCatalogBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessCatalogBenchmark.class);
+
+    private ProcessCatalogBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+        ProcessCatalog platform = new ProcessCatalog(ProcessSources.forCurrentPlatform());
+        ProcessCatalog handles = new ProcessCatalog(new ProcessHandleSource());
+
+        report(platform.getSource().getName(), rounds, () -> platform.snapshot().size());
+        report("ProcessHandle", rounds, () -> handles.snapshot().size());
+        // Ở trạng thái ổn định, lần quét tăng dần chỉ đọc đầy đủ các tiến trình mới
+        report(platform.getSource().getName() + ", tăng dần", rounds, () -> {
+            platform.refresh();
+            return platform.getProcesses().size();
+        });
+        report("Gọi lệnh ngoài", rounds, ProcessCatalogBenchmark::forkListing);
+    }
+
+    private static void report(String mode, int rounds, IntSupplier listing) {
+        // Khởi động JIT trước khi đo
+        int processes = 0;
+        for (int i = 0; i < Math.min(rounds, 10); i++) {
+            processes = listing.getAsInt();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            processes = listing.getAsInt();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        logger.info("[{}] {} lần liệt kê, {} tiến trình: {} µs/lần",
+                mode, rounds, processes, elapsed / 1000 / Math.max(rounds, 1));
+    }
+
+    /**
+     * Cách liệt kê cũ của {@code Application.getRunningApplications}, giữ lại làm mốc so sánh.
+     */
+    private static int forkListing() {
+        String os = System.getProperty("os.name").toLowerCase();
+        boolean windows = os.contains("win");
+        int count = 0;
+
+        try {
+            Process process = Runtime.getRuntime().exec(windows ? "tasklist /FO CSV /NH" : "ps -e -o pid,comm");
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                if (!windows) {
+                    reader.readLine();
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = windows ? line.split("\",\"") : line.trim().split("\\s+", 2);
+                    if (parts.length >= 2) {
+                        try {
+                            Integer.parseInt(parts[windows ? 1 : 0].replace("\"", ""));
+                            count++;
+                        } catch (NumberFormatException e) {
+                            // Bỏ qua nếu không phân tích được PID
+                        }
+                    }
+                }
+            }
+            process.waitFor();
+        } catch (IOException e) {
+            logger.error("Lỗi khi gọi lệnh liệt kê tiến trình", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,81 @@
+package com.promonitor.util;
+
+import com.promonitor.controller.LimitManager;
+import com.promonitor.controller.UserSettings;
+import com.promonitor.model.Monitor;
+import com.promonitor.model.Notifier;
+import com.promonitor.model.platform.ScriptedForegroundSource;
+import com.promonitor.model.platform.SimulatedFocusEventSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chạy nhịp lấy mẫu của Monitor với nguồn giả lập, không cần giao diện.
+ * Đo hai đường: lấy mẫu định kỳ và đẩy sự kiện đổi cửa sổ.
+ * Tham số: [số lần lấy mẫu] [số cửa sổ] [số mẫu liên tiếp cho mỗi cửa sổ]
+ */
+public final class TickBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(TickBenchmark.class);
+
+    private TickBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        long samples = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+        int windows = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int dwell = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        UserSettings settings = new UserSettings();
+        settings.setNotificationsEnabled(false);
+        Notifier notifier = new Notifier(settings);
+
+        ScriptedForegroundSource scripted = new ScriptedForegroundSource();
+        for (int i = 0; i < windows; i++) {
+            scripted.add(i + 1, 1000 + i, windowTitle(i), dwell);
+        }
+        Monitor polling = new Monitor(new LimitManager(), notifier, settings, scripted);
+        report("Lấy mẫu", samples, run(polling, samples, null, windows, dwell));
+
+        SimulatedFocusEventSource simulated = new SimulatedFocusEventSource();
+        Monitor pushed = new Monitor(new LimitManager(), notifier, settings, simulated);
+        report("Sự kiện", samples, run(pushed, samples, simulated, windows, dwell));
+    }
+
+    private static long run(Monitor monitor, long samples, SimulatedFocusEventSource events,
+                            int windows, int dwell) {
+        monitor.startMonitoring(false);
+
+        // Khởi động JIT trước khi đo
+        long warmup = Math.min(samples, 100_000L);
+        for (long i = 0; i < warmup; i++) {
+            step(monitor, i, events, windows, dwell);
+        }
+
+        long start = System.nanoTime();
+        for (long i = 0; i < samples; i++) {
+            step(monitor, i, events, windows, dwell);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        monitor.cleanup();
+        return elapsed;
+    }
+
+    private static void step(Monitor monitor, long i, SimulatedFocusEventSource events, int windows, int dwell) {
+        if (events != null && i % dwell == 0) {
+            int window = (int) ((i / dwell) % windows);
+            events.emit(window + 1, 1000 + window, windowTitle(window), "");
+        }
+        monitor.tick();
+    }
+
+    private static String windowTitle(int index) {
+        return "Cửa sổ thử nghiệm " + index + " - Trình duyệt";
+    }
+
+    private static void report(String mode, long samples, long elapsed) {
+        logger.info("[{}] {} nhịp trong {} ms: {} nhịp/giây, {} ns/nhịp",
+                mode, samples, elapsed / 1_000_000, samples * 1_000_000_000L / Math.max(elapsed, 1),
+                elapsed / Math.max(samples, 1));
+    }
+}
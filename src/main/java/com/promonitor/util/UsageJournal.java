@@ -0,0 +1,314 @@
+package com.promonitor.util;
+
+import com.promonitor.model.Application;
+import com.promonitor.model.interfaces.IUsageListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nhật ký sử dụng chỉ ghi nối, dạng nhị phân. Mỗi bản ghi gồm độ dài (int), loại (byte) và nội dung.
+ * Bản ghi được dồn vào một ByteBuffer trực tiếp cấp sẵn rồi ghi qua FileChannel, nên mỗi khoảng
+ * sử dụng chỉ tốn vài thao tác put, không tuần tự hóa đối tượng.
+ *
+ * <p>Nhật ký chia thành các phân đoạn xoay vòng theo kích thước. Mỗi phân đoạn tự chứa từ điển
+ * tên ứng dụng của nó: lần đầu một ứng dụng xuất hiện trong phân đoạn, một bản ghi từ điển gán
+ * cho nó một id cục bộ, các khoảng sử dụng sau đó chỉ ghi id. Phân đoạn đang ghi luôn là phân đoạn
+ * mới tạo khi mở nhật ký, nên đuôi ghi dở sau sự cố chỉ nằm ở phân đoạn cũ và được bên đọc bỏ qua.</p>
+ */
+public class UsageJournal implements IUsageListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(UsageJournal.class);
+
+    public static final int MAGIC = 0x504D4A31; // "PMJ1"
+    public static final short VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+
+    public static final byte TYPE_DICTIONARY = 1;
+    public static final byte TYPE_INTERVAL = 2;
+    public static final int INTERVAL_BODY_BYTES = 1 + 4 + 8 + 8;
+
+    public static final String SEGMENT_PREFIX = "segment-";
+    public static final String SEGMENT_SUFFIX = ".pmj";
+
+    private static final long DEFAULT_SEGMENT_BYTES = 4L * 1024 * 1024;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_NAME_BYTES = Short.MAX_VALUE;
+    private static final long FLUSH_INTERVAL_NANOS = 5_000_000_000L;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private FileChannel channel;
+    private Path activeSegment;
+    private long segmentBytes;
+    private long nextSequence;
+    private long lastFlushEpochNanos;
+    private boolean closed;
+
+    private long recordCount;
+    private long droppedCount;
+
+    public UsageJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public UsageJournal(Path directory, long maxSegmentBytes) throws IOException {
+        this.directory = directory;
+        this.maxSegmentBytes = Math.max(maxSegmentBytes, HEADER_BYTES + BUFFER_BYTES);
+        Files.createDirectories(directory);
+
+        long maxSequence = 0;
+        for (Path segment : listSegments(directory)) {
+            maxSequence = Math.max(maxSequence, sequenceOf(segment));
+        }
+        this.nextSequence = maxSequence + 1;
+    }
+
+    @Override
+    public void onIntervalClosed(Application application, long startEpochNanos, long endEpochNanos) {
+        append(application.getName(), application.getExecutablePath(), startEpochNanos, endEpochNanos);
+    }
+
+    /**
+     * Ghi một khoảng sử dụng vào bộ đệm; chỉ chạm tới đĩa khi bộ đệm đầy hoặc đã lâu chưa ghi.
+     *
+     * @return false nếu không ghi được
+     */
+    public synchronized boolean append(String appName, String executablePath,
+                                       long startEpochNanos, long endEpochNanos) {
+        if (closed || endEpochNanos <= startEpochNanos) {
+            return false;
+        }
+
+        try {
+            if (channel == null) {
+                openSegment();
+            }
+
+            Integer id = dictionary.get(appName);
+            if (id == null) {
+                id = dictionary.size();
+                writeDictionary(id, appName, executablePath);
+                dictionary.put(appName, id);
+            }
+
+            ensureSpace(4 + INTERVAL_BODY_BYTES);
+            buffer.putInt(INTERVAL_BODY_BYTES)
+                    .put(TYPE_INTERVAL)
+                    .putInt(id)
+                    .putLong(startEpochNanos)
+                    .putLong(endEpochNanos);
+            recordCount++;
+
+            if (segmentBytes + buffer.position() >= maxSegmentBytes) {
+                rollSegment();
+            } else if (endEpochNanos - lastFlushEpochNanos >= FLUSH_INTERVAL_NANOS) {
+                flushBuffer();
+                lastFlushEpochNanos = endEpochNanos;
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("Lỗi khi ghi nhật ký sử dụng", e);
+            droppedCount++;
+            abandonSegment();
+            return false;
+        }
+    }
+
+    private void writeDictionary(int id, String appName, String executablePath) throws IOException {
+        byte[] name = truncate(appName.getBytes(StandardCharsets.UTF_8));
+        byte[] exe = truncate((executablePath != null ? executablePath : "").getBytes(StandardCharsets.UTF_8));
+        int body = 1 + 4 + 2 + name.length + 2 + exe.length;
+        ensureSpace(4 + body);
+        buffer.putInt(body)
+                .put(TYPE_DICTIONARY)
+                .putInt(id)
+                .putShort((short) name.length).put(name)
+                .putShort((short) exe.length).put(exe);
+    }
+
+    private static byte[] truncate(byte[] bytes) {
+        if (bytes.length <= MAX_NAME_BYTES) {
+            return bytes;
+        }
+        byte[] cut = new byte[MAX_NAME_BYTES];
+        System.arraycopy(bytes, 0, cut, 0, MAX_NAME_BYTES);
+        return cut;
+    }
+
+    private void ensureSpace(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        activeSegment = directory.resolve(segmentName(nextSequence++));
+        channel = FileChannel.open(activeSegment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        dictionary.clear();
+        segmentBytes = 0;
+
+        buffer.clear();
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(System.currentTimeMillis());
+        flushBuffer();
+        logger.debug("Mở phân đoạn nhật ký: {}", activeSegment);
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmentBytes += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void rollSegment() throws IOException {
+        flushBuffer();
+        channel.force(false);
+        channel.close();
+        channel = null;
+        activeSegment = null;
+    }
+
+    private void abandonSegment() {
+        buffer.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Không thể đóng phân đoạn nhật ký", e);
+            }
+        }
+        // Phân đoạn lỗi được coi như đã niêm phong; lần ghi sau mở phân đoạn mới
+        channel = null;
+        activeSegment = null;
+    }
+
+    public synchronized void flush() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            flushBuffer();
+        } catch (IOException e) {
+            logger.error("Lỗi khi ghi nhật ký sử dụng", e);
+            abandonSegment();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            if (channel != null) {
+                rollSegment();
+            }
+        } catch (IOException e) {
+            logger.error("Lỗi khi đóng nhật ký sử dụng", e);
+            abandonSegment();
+        }
+        closed = true;
+    }
+
+    /**
+     * @return các phân đoạn không còn được ghi, theo thứ tự thời gian
+     */
+    public synchronized List<Path> sealedSegments() throws IOException {
+        List<Path> segments = listSegments(directory);
+        if (activeSegment != null) {
+            segments.remove(activeSegment);
+        }
+        return segments;
+    }
+
+    /**
+     * Đẩy bộ đệm xuống tệp rồi trả về mọi phân đoạn, kể cả phân đoạn đang ghi, để đọc lịch sử
+     * tới thời điểm hiện tại.
+     */
+    public synchronized List<Path> segmentsForRead() throws IOException {
+        flush();
+        return listSegments(directory);
+    }
+
+    /**
+     * Xóa các phân đoạn đã niêm phong mà mọi bản ghi đều khép lại trước {@code cutoffEpochMillis},
+     * tức là phân đoạn kế tiếp của chúng được tạo trước mốc đó.
+     *
+     * @return số phân đoạn đã xóa
+     */
+    public int deleteSegmentsBefore(long cutoffEpochMillis) throws IOException {
+        List<Path> segments = sealedSegments();
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            long nextCreated = JournalSegment.readCreatedEpochMillis(segments.get(i + 1));
+            if (nextCreated < 0 || nextCreated >= cutoffEpochMillis) {
+                break;
+            }
+            if (Files.deleteIfExists(segments.get(i))) {
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Đã xóa {} phân đoạn nhật ký quá hạn lưu giữ", deleted);
+        }
+        return deleted;
+    }
+
+    public static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                if (sequenceOf(segment) > 0) {
+                    segments.add(segment);
+                }
+            }
+        }
+        segments.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return segments;
+    }
+
+    static String segmentName(long sequence) {
+        return String.format("%s%08d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+}
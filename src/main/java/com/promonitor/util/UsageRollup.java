@@ -0,0 +1,310 @@
+package com.promonitor.util;
+
+import com.promonitor.model.Application;
+import com.promonitor.model.enums.RollupTier;
+import com.promonitor.model.interfaces.IUsageListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Tổng thời gian sử dụng theo phút, giờ và ngày cho từng ứng dụng và từng nhóm, được cập nhật
+ * tăng dần mỗi khi một khoảng sử dụng khép lại. Truy vấn một khoảng thời gian dùng tầng thô nhất
+ * thỏa mãn khoảng đó, nên chi phí tỉ lệ với số ô chứ không với số khoảng sử dụng.
+ */
+public class UsageRollup implements IUsageListener {
+    private static final Logger logger = LoggerFactory.getLogger(UsageRollup.class);
+
+    private static final int FILE_MAGIC = 0x504D5232; // "PMR2"
+    private static final RollupTier[] TIERS = {RollupTier.MINUTE, RollupTier.HOUR, RollupTier.DAY};
+
+    private final ZoneId zone;
+    // Mốc để biết phần nào của nhật ký chưa được tổng hợp khi tải lại
+    private long highWaterMarkNanos = Long.MIN_VALUE;
+    private final Map<RollupTier, Map<String, BucketSeries>> applications = new EnumMap<>(RollupTier.class);
+    private final Map<RollupTier, Map<String, BucketSeries>> groups = new EnumMap<>(RollupTier.class);
+    private volatile Function<Application, Collection<String>> groupResolver = app -> Collections.emptyList();
+    // Chỉ tuần tự hóa việc ghi tệp tạm giữa các lần lưu, không chặn record()
+    private final Object saveLock = new Object();
+
+    public UsageRollup() {
+        this(ZoneId.systemDefault());
+    }
+
+    public UsageRollup(ZoneId zone) {
+        this.zone = zone;
+        for (RollupTier tier : TIERS) {
+            applications.put(tier, new HashMap<>());
+            groups.put(tier, new HashMap<>());
+        }
+    }
+
+    /**
+     * @param groupResolver trả về tên các nhóm chứa ứng dụng; được gọi trên luồng lấy mẫu
+     */
+    public void setGroupResolver(Function<Application, Collection<String>> groupResolver) {
+        this.groupResolver = groupResolver;
+    }
+
+    @Override
+    public void onIntervalClosed(Application application, long startEpochNanos, long endEpochNanos) {
+        record(application.getName(), groupResolver.apply(application), startEpochNanos, endEpochNanos);
+    }
+
+    public synchronized void record(String appName, Collection<String> groupNames,
+                                    long startEpochNanos, long endEpochNanos) {
+        if (endEpochNanos <= startEpochNanos) {
+            return;
+        }
+        highWaterMarkNanos = Math.max(highWaterMarkNanos, endEpochNanos);
+        for (RollupTier tier : TIERS) {
+            BucketSeries appSeries = applications.get(tier).computeIfAbsent(appName, name -> new BucketSeries());
+            addPieces(tier, appSeries, startEpochNanos, endEpochNanos);
+            for (String group : groupNames) {
+                BucketSeries groupSeries = groups.get(tier).computeIfAbsent(group, name -> new BucketSeries());
+                addPieces(tier, groupSeries, startEpochNanos, endEpochNanos);
+            }
+        }
+    }
+
+    /**
+     * Chia khoảng theo ranh giới ô của tầng rồi cộng từng phần vào ô tương ứng.
+     */
+    private void addPieces(RollupTier tier, BucketSeries series, long start, long end) {
+        long cursor = start;
+        while (cursor < end) {
+            long bucket = bucketOf(tier, cursor);
+            long boundary = Math.min(end, bucketStart(tier, bucket + 1));
+            series.add(bucket, boundary - cursor);
+            cursor = boundary;
+        }
+    }
+
+    private long bucketOf(RollupTier tier, long epochNanos) {
+        if (tier == RollupTier.DAY) {
+            return LocalDate.ofInstant(toInstant(epochNanos), zone).toEpochDay();
+        }
+        return Math.floorDiv(epochNanos, tier.getBucket().toNanos());
+    }
+
+    private long bucketStart(RollupTier tier, long bucket) {
+        if (tier == RollupTier.DAY) {
+            Instant start = LocalDate.ofEpochDay(bucket).atStartOfDay(zone).toInstant();
+            return start.getEpochSecond() * 1_000_000_000L + start.getNano();
+        }
+        return bucket * tier.getBucket().toNanos();
+    }
+
+    private static Instant toInstant(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                Math.floorMod(epochNanos, 1_000_000_000L));
+    }
+
+    /**
+     * Chọn tầng thô nhất trả lời chính xác được [from, to): hai đầu khoảng phải nằm trên ranh giới ô
+     * và tầng còn giữ dữ liệu tại {@code from}.
+     *
+     * @return {@link RollupTier#RAW} nếu phải đọc khoảng thô trong nhật ký
+     */
+    public RollupTier tierFor(long fromEpochNanos, long toEpochNanos, long nowEpochMillis) {
+        for (int i = TIERS.length - 1; i >= 0; i--) {
+            RollupTier tier = TIERS[i];
+            if (bucketStart(tier, bucketOf(tier, fromEpochNanos)) != fromEpochNanos
+                    || bucketStart(tier, bucketOf(tier, toEpochNanos)) != toEpochNanos) {
+                continue;
+            }
+            if (tier.getRetention() != null
+                    && fromEpochNanos < (nowEpochMillis - tier.getRetention().toMillis()) * 1_000_000L) {
+                continue;
+            }
+            return tier;
+        }
+        return RollupTier.RAW;
+    }
+
+    /**
+     * @return tổng thời gian (ns) theo ứng dụng trong [from, to), hoặc null nếu không tầng nào trả lời được
+     */
+    public Map<String, Long> queryApplications(long fromEpochNanos, long toEpochNanos) {
+        return query(applications, fromEpochNanos, toEpochNanos);
+    }
+
+    public Map<String, Long> queryGroups(long fromEpochNanos, long toEpochNanos) {
+        return query(groups, fromEpochNanos, toEpochNanos);
+    }
+
+    private synchronized Map<String, Long> query(Map<RollupTier, Map<String, BucketSeries>> source,
+                                                 long fromEpochNanos, long toEpochNanos) {
+        RollupTier tier = tierFor(fromEpochNanos, toEpochNanos, System.currentTimeMillis());
+        if (tier == RollupTier.RAW) {
+            return null;
+        }
+
+        long fromBucket = bucketOf(tier, fromEpochNanos);
+        long toBucket = bucketOf(tier, toEpochNanos);
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<String, BucketSeries> entry : source.get(tier).entrySet()) {
+            long nanos = entry.getValue().sum(fromBucket, toBucket);
+            if (nanos > 0) {
+                result.put(entry.getKey(), nanos);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Bỏ các ô đã quá thời gian lưu giữ của tầng.
+     *
+     * @return số ô đã bỏ
+     */
+    public synchronized int applyRetention(long nowEpochMillis) {
+        int removed = 0;
+        for (RollupTier tier : TIERS) {
+            if (tier.getRetention() == null) {
+                continue;
+            }
+            long cutoff = bucketOf(tier, (nowEpochMillis - tier.getRetention().toMillis()) * 1_000_000L);
+            removed += prune(applications.get(tier), cutoff) + prune(groups.get(tier), cutoff);
+        }
+        return removed;
+    }
+
+    private static int prune(Map<String, BucketSeries> seriesByKey, long cutoffBucket) {
+        int removed = 0;
+        Iterator<BucketSeries> it = seriesByKey.values().iterator();
+        while (it.hasNext()) {
+            BucketSeries series = it.next();
+            removed += series.removeBefore(cutoffBucket);
+            if (series.isEmpty()) {
+                it.remove();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Dựng lại toàn bộ các tầng từ tệp ngày và nhật ký, dùng khi chưa có tệp tổng hợp.
+     */
+    public synchronized void rebuildFrom(DayArchive archive, List<Path> segments,
+                                         Function<String, Collection<String>> groupsByAppName) throws IOException {
+        for (RollupTier tier : TIERS) {
+            applications.get(tier).clear();
+            groups.get(tier).clear();
+        }
+        highWaterMarkNanos = Long.MIN_VALUE;
+        archive.scan(segments, Long.MIN_VALUE, Long.MAX_VALUE,
+                (name, exe, start, end) -> record(name, groupsByAppName.apply(name), start, end));
+    }
+
+    /**
+     * Cộng các khoảng khép lại sau mốc cao nhất đã tổng hợp, ví dụ những khoảng đã vào nhật ký
+     * nhưng chưa kịp lưu vào tệp tổng hợp khi ứng dụng bị tắt đột ngột.
+     *
+     * @return số khoảng đã cộng thêm
+     */
+    public synchronized int replayAfterHighWaterMark(DayArchive archive, List<Path> segments,
+                                                     Function<String, Collection<String>> groupsByAppName)
+            throws IOException {
+        int[] replayed = {0};
+        long from = highWaterMarkNanos;
+        archive.scan(segments, from, Long.MAX_VALUE, (name, exe, start, end) -> {
+            record(name, groupsByAppName.apply(name), start, end);
+            replayed[0]++;
+        });
+        return replayed[0];
+    }
+
+    /**
+     * @return thời điểm kết thúc muộn nhất trong các khoảng đã tổng hợp
+     */
+    public synchronized long getHighWaterMarkNanos() {
+        return highWaterMarkNanos;
+    }
+
+    /**
+     * Chụp dữ liệu vào bộ nhớ khi giữ khóa rồi mới ghi tệp, để luồng lấy mẫu không phải chờ thao tác đĩa.
+     */
+    public void save(Path file) throws IOException {
+        byte[] snapshot = snapshot();
+        synchronized (saveLock) {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, snapshot);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private synchronized byte[] snapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeLong(highWaterMarkNanos);
+            for (RollupTier tier : TIERS) {
+                writeSeries(out, applications.get(tier));
+                writeSeries(out, groups.get(tier));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeSeries(DataOutputStream out, Map<String, BucketSeries> seriesByKey) throws IOException {
+        out.writeInt(seriesByKey.size());
+        for (Map.Entry<String, BucketSeries> entry : seriesByKey.entrySet()) {
+            BucketSeries series = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeInt(series.size());
+            for (int i = 0; i < series.size(); i++) {
+                out.writeLong(series.bucketAt(i));
+                out.writeLong(series.valueAt(i));
+            }
+        }
+    }
+
+    public synchronized void load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Tệp tổng hợp không hợp lệ: " + file);
+            }
+            highWaterMarkNanos = in.readLong();
+            for (RollupTier tier : TIERS) {
+                readSeries(in, applications.get(tier));
+                readSeries(in, groups.get(tier));
+            }
+        }
+        logger.debug("Đã tải dữ liệu tổng hợp từ {}", file);
+    }
+
+    private static void readSeries(DataInputStream in, Map<String, BucketSeries> seriesByKey) throws IOException {
+        seriesByKey.clear();
+        int keys = in.readInt();
+        for (int k = 0; k < keys; k++) {
+            String key = in.readUTF();
+            int count = in.readInt();
+            BucketSeries series = new BucketSeries(count);
+            for (int i = 0; i < count; i++) {
+                long bucket = in.readLong();
+                series.add(bucket, in.readLong());
+            }
+            seriesByKey.put(key, series);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.promonitor.controller.MainController;
 import com.promonitor.model.Application;
 import com.promonitor.model.ApplicationGroup;
 import com.promonitor.model.Limit;
+import com.promonitor.model.LimitTarget;
+import com.promonitor.model.enums.LimitTargetType;
 import com.promonitor.model.enums.LimitType;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
@@ -22,6 +24,7 @@ public class LimitCreationDialog extends Dialog<Limit> {
     private ComboBox<LimitType> limitTypeCombo;
     private TextField hoursField;
     private TextField minutesField;
+    private TextField patternField;
     private Object selectedTarget;
     private String selectedTargetType;
 
@@ -39,10 +42,12 @@ public class LimitCreationDialog extends Dialog<Limit> {
         grid.setPadding(new Insets(20, 150, 10, 10));
 
         targetTypeCombo = new ComboBox<>();
-        targetTypeCombo.setItems(FXCollections.observableArrayList("Ứng dụng", "Nhóm"));
+        targetTypeCombo.setItems(FXCollections.observableArrayList("Ứng dụng", "Nhóm", "Mẫu"));
         targetTypeCombo.setValue("Ứng dụng");
 
         targetCombo = new ComboBox<>();
+        patternField = new TextField();
+        patternField.setPromptText("chrome.exe, *YouTube*, ...");
         updateTargetCombo("Ứng dụng");
 
         targetTypeCombo.valueProperty().addListener((obs, oldVal, newVal) -> updateTargetCombo(newVal));
@@ -60,12 +65,14 @@ public class LimitCreationDialog extends Dialog<Limit> {
         grid.add(targetTypeCombo, 1, 0);
         grid.add(new Label("Đối tượng:"), 0, 1);
         grid.add(targetCombo, 1, 1);
-        grid.add(new Label("Loại giới hạn:"), 0, 2);
-        grid.add(limitTypeCombo, 1, 2);
-        grid.add(new Label("Giới hạn (giờ):"), 0, 3);
-        grid.add(hoursField, 1, 3);
-        grid.add(new Label("Giới hạn (phút):"), 0, 4);
-        grid.add(minutesField, 1, 4);
+        grid.add(new Label("Mẫu:"), 0, 2);
+        grid.add(patternField, 1, 2);
+        grid.add(new Label("Loại giới hạn:"), 0, 3);
+        grid.add(limitTypeCombo, 1, 3);
+        grid.add(new Label("Giới hạn (giờ):"), 0, 4);
+        grid.add(hoursField, 1, 4);
+        grid.add(new Label("Giới hạn (phút):"), 0, 5);
+        grid.add(minutesField, 1, 5);
 
         getDialogPane().setContent(grid);
 
@@ -91,8 +98,18 @@ public class LimitCreationDialog extends Dialog<Limit> {
 
                 if(selectedTargetType.equals("Ứng dụng"))
                     controller.setLimit((Application) selectedTarget, new Limit(selectedLimitType, duration));
-                else
+                else if(selectedTargetType.equals("Nhóm"))
                     controller.setLimit((ApplicationGroup) selectedTarget, new Limit(selectedLimitType, duration));
+                else {
+                    try {
+                        selectedTarget = new LimitTarget((LimitTargetType) selectedTarget, patternField.getText());
+                        controller.setLimit((LimitTarget) selectedTarget, new Limit(selectedLimitType, duration));
+                    } catch (IllegalArgumentException e) {
+                        Alert alert = new Alert(Alert.AlertType.ERROR, "Mẫu không hợp lệ: " + e.getMessage());
+                        alert.setHeaderText(null);
+                        alert.showAndWait();
+                    }
+                }
             }
             return null;
         });
@@ -103,6 +120,7 @@ public class LimitCreationDialog extends Dialog<Limit> {
     }
 
     private void updateTargetCombo(String targetType) {
+        patternField.setDisable(!"Mẫu".equals(targetType));
         if ("Ứng dụng".equals(targetType)) {
             List<Application> apps = controller.getApplications();
             targetCombo.setItems(FXCollections.observableArrayList(apps));
@@ -115,6 +133,9 @@ public class LimitCreationDialog extends Dialog<Limit> {
             if (!groups.isEmpty()) {
                 targetCombo.setValue(groups.get(0));
             }
+        } else if ("Mẫu".equals(targetType)) {
+            targetCombo.setItems(FXCollections.observableArrayList((Object[]) LimitTargetType.values()));
+            targetCombo.setValue(LimitTargetType.EXECUTABLE);
         }
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.promonitor.controller.MainController;
 import com.promonitor.model.Application;
 import com.promonitor.model.ApplicationGroup;
 import com.promonitor.model.Limit;
+import com.promonitor.model.LimitTarget;
 import com.promonitor.model.enums.LimitType;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
@@ -13,7 +14,7 @@ import java.time.Duration;
 
 public class LimitEditDialog extends Dialog<Limit> {
     private final MainController controller;
-    private final Application target;
+    private final Object target;
     private final Limit originalLimit;
 
     private ComboBox<LimitType> limitTypeCombo;
@@ -24,9 +25,9 @@ public class LimitEditDialog extends Dialog<Limit> {
 
     public LimitEditDialog(LimitsView.LimitInfo limitInfo, MainController controller) {
         this.controller = controller;
-        this.target = (Application) limitInfo.getTarget();
+        this.target = limitInfo.getTarget();
         // Lấy giới hạn hiện có từ LimitManager dựa trên đối tượng
-        this.originalLimit = controller.getLimitManager().getLimit(target);
+        this.originalLimit = controller.getLimitManager().getAllLimits().get(target);
 
         setTitle("Chỉnh sửa giới hạn");
         setHeaderText("Chỉnh sửa giới hạn cho: " + limitInfo.getTargetName());
@@ -76,7 +77,14 @@ public class LimitEditDialog extends Dialog<Limit> {
                     newMinutes = 0;
                 }
                 Duration newDuration = Duration.ofHours(newHours).plusMinutes(newMinutes);
-                controller.setLimit(target, new Limit(selectedType, newDuration));
+                Limit newLimit = new Limit(selectedType, newDuration);
+                if (target instanceof Application app) {
+                    controller.setLimit(app, newLimit);
+                } else if (target instanceof ApplicationGroup group) {
+                    controller.setLimit(group, newLimit);
+                } else if (target instanceof LimitTarget pattern) {
+                    controller.setLimit(pattern, newLimit);
+                }
             }
             return null;
         });
@@ -110,6 +110,9 @@ public class LimitsView {
             } else if (target instanceof ApplicationGroup group) {
                 targetName = group.getName();
                 targetType = "Nhóm";
+            } else if (target instanceof LimitTarget pattern) {
+                targetName = pattern.getPattern();
+                targetType = pattern.getType().getDisplayName();
             } else {
                 continue; // Bỏ qua các loại không hỗ trợ
             }
@@ -158,6 +161,8 @@ public class LimitsView {
                     controller.getLimitManager().removeLimit((Application) target);
                 } else if (target instanceof ApplicationGroup) {
                     controller.getLimitManager().removeLimit((ApplicationGroup) target);
+                } else if (target instanceof LimitTarget) {
+                    controller.getLimitManager().removeLimit((LimitTarget) target);
                 }
 
                 loadLimits();
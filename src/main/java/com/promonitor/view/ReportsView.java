@@ -206,6 +206,15 @@ public class ReportsView {
                     .append(app.get("usageTime")).append("\n");
         }
 
+        List<Map<String, Object>> groupUsage = (List<Map<String, Object>>) data.get("groupUsageData");
+        if (groupUsage != null && !groupUsage.isEmpty()) {
+            reportText.append("\nCHI TIẾT SỬ DỤNG THEO NHÓM:\n");
+            for (Map<String, Object> group : groupUsage) {
+                reportText.append("  • ").append(group.get("groupName")).append(": ")
+                        .append(group.get("usageTime")).append("\n");
+            }
+        }
+
         reportText.append("\nGỢI Ý TỐI ƯU HÓA THỜI GIAN:\n");
         List<String> suggestions = currentReport.generateSuggestions();
 
@@ -27,6 +27,7 @@ public class SettingsView {
     private CheckBox notificationsEnabledCheck;
     private TextField soundPathField;
     private Spinner<Integer> warningThresholdSpinner;
+    private Spinner<Integer> renotifyIntervalSpinner;
     private CheckBox startAtLoginCheck;
     private CheckBox minimizeToTrayCheck;
     private CheckBox autoStartMonitoringCheck;
@@ -147,7 +148,15 @@ public class SettingsView {
         HBox thresholdBox = new HBox(10, thresholdLabel, warningThresholdSpinner);
         thresholdBox.setAlignment(Pos.CENTER_LEFT);
 
-        box.getChildren().addAll(typeBox, notificationsEnabledCheck, soundBox, thresholdBox);
+        Label renotifyLabel = new Label("Nhắc lại sau (phút, 0 = không nhắc lại):");
+        renotifyIntervalSpinner = new Spinner<>(0, 120, 10);
+        renotifyIntervalSpinner.setEditable(true);
+        renotifyIntervalSpinner.setPrefWidth(80);
+
+        HBox renotifyBox = new HBox(10, renotifyLabel, renotifyIntervalSpinner);
+        renotifyBox.setAlignment(Pos.CENTER_LEFT);
+
+        box.getChildren().addAll(typeBox, notificationsEnabledCheck, soundBox, thresholdBox, renotifyBox);
 
         return new TitledPane("Cài đặt thông báo", box);
     }
@@ -216,6 +225,7 @@ public class SettingsView {
         notificationsEnabledCheck.setSelected(currentSettings.isNotificationsEnabled());
         soundPathField.setText(currentSettings.getSoundAlertPath());
         warningThresholdSpinner.getValueFactory().setValue(currentSettings.getWarningThresholdMinutes());
+        renotifyIntervalSpinner.getValueFactory().setValue(currentSettings.getRenotifyIntervalMinutes());
 
         // Cài đặt chung
         startAtLoginCheck.setSelected(currentSettings.isStartAtLogin());
@@ -231,12 +241,17 @@ public class SettingsView {
         newSettings.setNotificationsEnabled(notificationsEnabledCheck.isSelected());
         newSettings.setSoundAlertPath(soundPathField.getText());
         newSettings.setWarningThresholdMinutes(warningThresholdSpinner.getValue());
+        newSettings.setRenotifyIntervalMinutes(renotifyIntervalSpinner.getValue());
 
         newSettings.setStartAtLogin(startAtLoginCheck.isSelected());
         newSettings.setMinimizeToTray(minimizeToTrayCheck.isSelected());
         newSettings.setAutoStartMonitoring(autoStartMonitoringCheck.isSelected());
         newSettings.setMonitorMode(monitorModeCombo.getValue());
 
+        // Các cài đặt nâng cao chỉ chỉnh qua tệp cấu hình, giữ nguyên giá trị hiện tại
+        newSettings.setMaxTrackedWindows(currentSettings.getMaxTrackedWindows());
+        newSettings.setKillProcessTree(currentSettings.isKillProcessTree());
+
         boolean saved = controller.updateUserSettings(newSettings);
 
         if (saved) {